@@ -0,0 +1,86 @@
+/**
+ * A thread safe A* solver over packed states, with optional weighting of the heuristic
+ * Each thread keeps its own SearchContext, which is reset and reused by every solve on that thread
+ *
+ * @author calebcain
+ */
+public class AStarSolver extends AbstractSolver {
+
+    @Override
+    protected String algorithm(SolveOptions options) {
+        return options.getWeight() == 1.0 ? "A*" : "Weighted A*";
+    }
+
+    @Override
+    protected double weight(SolveOptions options) {
+        return options.getWeight();
+    }
+
+    @Override
+    protected SolveResult search(long start, SolveOptions options, SearchBudget budget) {
+        SearchContext context = SearchContext.forThread();
+        context.reset(options.getWeight());
+
+        int heuristic = options.getHeuristic();
+        int root = context.addNode(start, 0, estimate(start, heuristic), -1, -1);
+        context.put(start, root);
+        context.push(root);
+
+        int nodesGenerated = 1;
+        int nodesExpanded = 0;
+
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
+        while (!context.isOpenEmpty()) {
+            timer.start();
+            int node = context.pop();
+            timer.addOpenList();
+
+            long state = context.states[node];
+
+            // skip nodes that were replaced by a cheaper path to the same state
+            if (context.find(state) != node)
+                continue;
+
+            if (state == PackedState.GOAL)
+                return new SolveResult(SolveResult.Status.SOLVED, context.path(node),
+                        nodesGenerated, nodesExpanded, budget.elapsedMillis(), context.peakOpenSize());
+
+            if (budget.exhausted(nodesExpanded))
+                return stopped(budget, context, nodesGenerated, nodesExpanded, context.peakOpenSize());
+            timer.progress(nodesGenerated, nodesExpanded, context.openSize(), context.weightedCost(node));
+            nodesExpanded++;
+
+            int blank = PackedState.blankIndex(state);
+            int cameFrom = node == root ? -1 : PackedState.REVERSE[context.move[node]];
+            int cost = context.g[node] + 1;
+
+            for (int direction : PackedState.MOVES[blank]) {
+                if (direction == cameFrom)
+                    continue;
+
+                timer.start();
+                long child = PackedState.move(state, blank, direction);
+                int known = context.find(child);
+                timer.addExpansion();
+                if (known >= 0 && context.g[known] <= cost)
+                    continue;
+
+                int h = known >= 0 ? context.h[known] : estimate(child, heuristic);
+                timer.addHeuristic();
+
+                int added = context.addNode(child, cost, h, node, direction);
+                context.put(child, added);
+                context.push(added);
+                timer.addOpenList();
+
+                if (++nodesGenerated > options.getMaxNodes())
+                    return new SolveResult(SolveResult.Status.NODE_LIMIT, null,
+                            nodesGenerated, nodesExpanded, budget.elapsedMillis(), context.peakOpenSize());
+            }
+        }
+
+        return new SolveResult(SolveResult.Status.UNSOLVABLE, null, nodesGenerated, nodesExpanded,
+                budget.elapsedMillis(), context.peakOpenSize());
+    }
+}
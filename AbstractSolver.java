@@ -0,0 +1,81 @@
+/**
+ * The parts shared by the solvers over packed states: turning away start states that cannot be solved,
+ * recording the flight recorder events around each solve, the heuristic estimates and the results of
+ * searches that were stopped early
+ * Subclasses only implement the search itself
+ *
+ * @author calebcain
+ */
+public abstract class AbstractSolver implements Solver {
+
+    @Override
+    public SolveResult solve(long start, SolveOptions options, SearchBudget budget) {
+        String algorithm = algorithm(options);
+        Object event = SearchEvents.solveStarted(algorithm, options.getHeuristic(), weight(options), start);
+
+        SolveResult result;
+        if (!PackedState.isValid(start) || !PackedState.isSolvable(start))
+            result = new SolveResult(SolveResult.Status.UNSOLVABLE, null, 0, 0, budget.elapsedMillis());
+        else
+            result = search(start, options, budget);
+
+        SearchEvents.solveEnded(event, algorithm, result.getStatus(), result.getCost(),
+                result.getNodesGenerated(), result.getNodesExpanded());
+        return result;
+    }
+
+    /**
+     * runs the search of a solve from a state that is valid and can reach the goal
+     * @param start the packed start state
+     * @param options the heuristic, weight and limits of the search
+     * @param budget the time budget of the search
+     * @return the result of the search
+     */
+    protected abstract SolveResult search(long start, SolveOptions options, SearchBudget budget);
+
+    /**
+     * gets the name of the search algorithm, as recorded in flight recorder events
+     * @param options the options of the solve
+     * @return the name of the algorithm
+     */
+    protected abstract String algorithm(SolveOptions options);
+
+    /**
+     * gets the weight the search applies to the heuristic, as recorded in flight recorder events
+     * @param options the options of the solve
+     * @return the weight, 1 unless the search uses the weight of the options
+     */
+    protected double weight(SolveOptions options) {
+        return 1.0;
+    }
+
+    /**
+     * computes the heuristic estimate of a packed state
+     * @param state the packed state
+     * @param heuristic SolveOptions.MISPLACED_TILES or SolveOptions.MANHATTAN_DISTANCE
+     * @return the estimated number of moves to the goal
+     */
+    protected static int estimate(long state, int heuristic) {
+        if (heuristic == SolveOptions.MISPLACED_TILES)
+            return PackedState.misplacedTiles(state);
+        return PackedState.manhattanDistance(state);
+    }
+
+    /**
+     * builds the result of a search that ran out of time or was cancelled,
+     * with the path to the node of the context closest to the goal
+     * @param budget the budget that stopped the search
+     * @param context the context of the search
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     * @param peakOpenSize the largest number of nodes on the open list at once, 0 if the search kept none
+     * @return the result of the search
+     */
+    protected static SolveResult stopped(SearchBudget budget, SearchContext context,
+                                         int nodesGenerated, int nodesExpanded, int peakOpenSize) {
+        SolveResult.Status status = budget.isCancelled() ? SolveResult.Status.CANCELLED : SolveResult.Status.TIME_LIMIT;
+        int closest = context.closest();
+        return new SolveResult(status, context.states[closest], context.path(closest),
+                nodesGenerated, nodesExpanded, budget.elapsedMillis(), peakOpenSize);
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * A thread safe anytime repairing A* (ARA*) solver over packed states
+ * A first solution is found quickly with the weight of the options, then the weight is lowered by
+ * WEIGHT_STEP and the search is repaired, reusing its previous work, until the weight reaches 1,
+ * the max number of nodes is exceeded or the budget runs out
+ * The best solution found is returned with its suboptimality bound, see SolveResult.getBound,
+ * and a Listener can be told of every improved solution as it is found
+ * The heuristics do not count the blank, so they are admissible and the bound holds
+ *
+ * Each node is marked with the pass that expanded it. A state improved after it was expanded in the
+ * current pass is left off the open list until the next pass, as ARA* keeps it inconsistent, so the
+ * open list of a repaired pass is every node that is still the best for its state and was never expanded
+ *
+ * @author calebcain
+ */
+public class AraStarSolver extends AbstractSolver {
+
+    /**
+     * the amount the weight is lowered by after each pass
+     */
+    public static final double WEIGHT_STEP = 0.5;
+
+    /**
+     * Told of each solution an ARA* search improves on, so callers can use a solution before the search ends
+     */
+    public interface Listener {
+
+        /**
+         * called when a shorter solution or a tighter bound is found
+         * @param moves the number of moves of the best solution found so far
+         * @param bound the most times the number of moves of the shortest solution that it can have
+         * @param nodesGenerated the number of nodes generated so far
+         */
+        void improved(int moves, double bound, int nodesGenerated);
+    }
+
+    private final Listener listener;
+
+    /**
+     * Creates a solver that only returns the best solution found
+     */
+    public AraStarSolver() {
+        this(null);
+    }
+
+    /**
+     * Creates a solver that also reports every improved solution
+     * @param listener told of each improvement, called on the thread running the solve
+     */
+    public AraStarSolver(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    protected String algorithm(SolveOptions options) {
+        return "ARA*";
+    }
+
+    @Override
+    protected double weight(SolveOptions options) {
+        return options.getWeight();
+    }
+
+    @Override
+    protected SolveResult search(long start, SolveOptions options, SearchBudget budget) {
+        double weight = options.getWeight();
+        SearchContext context = SearchContext.forThread();
+        context.reset(weight);
+
+        int heuristic = options.getHeuristic();
+        int root = context.addNode(start, 0, estimate(start, heuristic), -1, -1);
+        context.put(start, root);
+        if (start == PackedState.GOAL)
+            return new SolveResult(new byte[0], 1.0, 1, 0, budget.elapsedMillis(), 0);
+        context.push(root);
+
+        int nodesGenerated = 1;
+        int nodesExpanded = 0;
+        int pass = 1;
+
+        int incumbent = -1;
+        int reported = -1;
+        double bound = Double.MAX_VALUE;
+        boolean exceeded = false;
+        boolean stopped = false;
+
+        // the weight of the last pass that ran to completion, whose bound the incumbent is known to meet
+        double completedWeight = Double.MAX_VALUE;
+
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
+        while (true) {
+
+            // expand nodes until no node on the open list can improve on the incumbent under the current weight
+            while (!exceeded && !stopped && !context.isOpenEmpty()) {
+                int node = context.peek();
+                long state = context.states[node];
+
+                // skip nodes that were replaced by a cheaper path to the same state
+                if (context.find(state) != node) {
+                    context.pop();
+                    continue;
+                }
+                if (incumbent >= 0 && context.g[incumbent] <= context.weightedCost(node))
+                    break;
+
+                if (budget.exhausted(nodesExpanded)) {
+                    stopped = true;
+                    break;
+                }
+                timer.progress(nodesGenerated, nodesExpanded, context.openSize(), context.weightedCost(node));
+                nodesExpanded++;
+
+                timer.start();
+                context.pop();
+                timer.addOpenList();
+                context.mark[node] = pass;
+
+                int blank = PackedState.blankIndex(state);
+                int cost = context.g[node] + 1;
+
+                for (int direction : PackedState.MOVES[blank]) {
+                    timer.start();
+                    long child = PackedState.move(state, blank, direction);
+                    int known = context.find(child);
+                    timer.addExpansion();
+                    if (known >= 0 && context.g[known] <= cost)
+                        continue;
+
+                    int h = known >= 0 ? context.h[known] : estimate(child, heuristic);
+                    timer.addHeuristic();
+
+                    int added = context.addNode(child, cost, h, node, direction);
+                    context.put(child, added);
+                    if (known < 0 || context.mark[known] != pass)
+                        context.push(added);
+                    timer.addOpenList();
+
+                    if (child == PackedState.GOAL && (incumbent < 0 || cost < context.g[incumbent]))
+                        incumbent = added;
+
+                    if (++nodesGenerated > options.getMaxNodes()) {
+                        exceeded = true;
+                        break;
+                    }
+                }
+
+                // a node cut off partway through its expansion counts as unexpanded, so the bound below
+                // still accounts for the children it did not get to generate
+                if (exceeded)
+                    context.mark[node] = 0;
+            }
+
+            if (!exceeded && !stopped)
+                completedWeight = weight;
+
+            if (incumbent < 0)
+                break;
+
+            double improved = bound(context, incumbent, completedWeight);
+            if (incumbent != reported || improved < bound) {
+                reported = incumbent;
+                bound = improved;
+                if (listener != null)
+                    listener.improved(context.g[incumbent], bound, nodesGenerated);
+            }
+
+            if (exceeded || stopped || weight <= 1.0)
+                break;
+
+            // a pass can end without expanding anything, so the budget is also checked once per repair
+            if (budget.exhausted()) {
+                stopped = true;
+                break;
+            }
+
+            // lower the weight and repair the search with the nodes that are still open or were improved after closing
+            weight = Math.max(1.0, weight - WEIGHT_STEP);
+            pass++;
+            context.clearOpen(weight);
+            for (int node = 0; node < context.nodeCount; node++)
+                if (context.mark[node] == 0 && context.find(context.states[node]) == node)
+                    context.push(node);
+        }
+
+        if (incumbent >= 0)
+            return new SolveResult(context.path(incumbent), bound, nodesGenerated, nodesExpanded,
+                    budget.elapsedMillis(), context.peakOpenSize());
+        if (stopped)
+            return stopped(budget, context, nodesGenerated, nodesExpanded, context.peakOpenSize());
+
+        SolveResult.Status status = exceeded ? SolveResult.Status.NODE_LIMIT : SolveResult.Status.UNSOLVABLE;
+        return new SolveResult(status, null, nodesGenerated, nodesExpanded, budget.elapsedMillis(),
+                context.peakOpenSize());
+    }
+
+    /**
+     * bounds the suboptimality of the incumbent by the lowest g + h left to explore, which the optimal solution
+     * cannot beat, and by the weight of the last completed pass
+     * @param context the context of the search
+     * @param incumbent the node of the best solution found
+     * @param completedWeight the weight of the last pass that ran to completion
+     * @return the most times the number of moves of the shortest solution that the incumbent can have
+     */
+    private static double bound(SearchContext context, int incumbent, double completedWeight) {
+        double lowest = Double.MAX_VALUE;
+        for (int node = 0; node < context.nodeCount; node++)
+            if (context.mark[node] == 0 && context.find(context.states[node]) == node)
+                lowest = Math.min(lowest, context.g[node] + context.h[node]);
+
+        // the start is not the goal, so every node left has a positive g + h
+        if (lowest == Double.MAX_VALUE)
+            return 1.0;
+        return Math.max(1.0, Math.min(completedWeight, context.g[incumbent] / lowest));
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Heuristics for a batch of packed states at once
+ * Uses VectorHeuristics when it was compiled from the vector directory and the jdk.incubator.vector
+ * module is added at run time, and scalar code otherwise. VectorHeuristics is loaded by name,
+ * so the other classes compile without the incubator module
+ * The vector code is only used when the preferred vectors hold at least MIN_LANES states; with narrower
+ * vectors, such as on machines without AVX2, the lane extraction costs more than it saves and the
+ * vector code runs several times slower than the scalar code
+ * Setting the property puzzle.scalarHeuristics to true forces the scalar code
+ *
+ * Usage: java --add-modules jdk.incubator.vector BatchHeuristics [count]
+ * compares the throughput of the scalar and vector code
+ *
+ * @author calebcain
+ */
+public class BatchHeuristics {
+
+    /**
+     * Evaluates a heuristic for the first states of a batch, implemented by VectorHeuristics
+     */
+    public interface Evaluator {
+
+        /**
+         * counts the misplaced tiles of each state, not counting the blank
+         * @param states the packed states
+         * @param count the number of states to evaluate
+         * @param out the array to store the counts in
+         * @return the number of states evaluated, the rest are left for scalar code
+         */
+        int misplacedTiles(long[] states, int count, int[] out);
+
+        /**
+         * sums the manhattan distances of the tiles of each state, not counting the blank
+         * @param states the packed states
+         * @param count the number of states to evaluate
+         * @param out the array to store the distances in
+         * @return the number of states evaluated, the rest are left for scalar code
+         */
+        int manhattanDistance(long[] states, int count, int[] out);
+
+        /**
+         * gets the number of states evaluated at once
+         * @return the number of lanes
+         */
+        int lanes();
+    }
+
+    /**
+     * the fewest states a vector must hold for the vector code to be faster than the scalar code
+     */
+    private static final int MIN_LANES = 4;
+
+    /**
+     * the vector evaluator, or null if the scalar code is used
+     */
+    private static final Evaluator VECTOR = loadVector();
+
+    private static final boolean VECTORIZED = VECTOR != null;
+
+    /**
+     * loads VectorHeuristics if it can be used
+     * @return the vector evaluator, or null if it was not compiled in, the module is missing,
+     * its vectors hold fewer than MIN_LANES states or scalar code is forced
+     */
+    private static Evaluator loadVector() {
+        if (Boolean.getBoolean("puzzle.scalarHeuristics") ||
+                !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+            return null;
+
+        try {
+            Evaluator evaluator = (Evaluator) Class.forName("VectorHeuristics").getDeclaredConstructor().newInstance();
+            return evaluator.lanes() >= MIN_LANES ? evaluator : null;
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        } catch (LinkageError err) {
+            return null;
+        }
+    }
+
+    /**
+     * evaluates a heuristic for a batch of states
+     * @param states the packed states
+     * @param count the number of states to evaluate
+     * @param heuristic SolveOptions.MISPLACED_TILES or SolveOptions.MANHATTAN_DISTANCE
+     * @param out the array to store the estimates in, at least count long
+     */
+    public static void evaluate(long[] states, int count, int heuristic, int[] out) {
+        int done = 0;
+        if (VECTORIZED) {
+            if (heuristic == SolveOptions.MISPLACED_TILES)
+                done = VECTOR.misplacedTiles(states, count, out);
+            else
+                done = VECTOR.manhattanDistance(states, count, out);
+        }
+
+        evaluateScalar(states, done, count, heuristic, out);
+    }
+
+    /**
+     * evaluates a heuristic for part of a batch of states one state at a time
+     * @param states the packed states
+     * @param from the index of the first state to evaluate
+     * @param to the index after the last state to evaluate
+     * @param heuristic SolveOptions.MISPLACED_TILES or SolveOptions.MANHATTAN_DISTANCE
+     * @param out the array to store the estimates in
+     */
+    public static void evaluateScalar(long[] states, int from, int to, int heuristic, int[] out) {
+        if (heuristic == SolveOptions.MISPLACED_TILES) {
+            for (int i = from; i < to; i++)
+                out[i] = PackedState.misplacedTiles(states[i]);
+        }
+        else {
+            for (int i = from; i < to; i++)
+                out[i] = PackedState.manhattanDistance(states[i]);
+        }
+    }
+
+    /**
+     * checks if batches are evaluated with the Vector API
+     * @return true if the vector code is used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * main method to compare the throughput of the scalar and vector heuristics
+     * @param args the number of states per batch, defaulting to 1000000
+     */
+    public static void main(String[] args) {
+        int count = 1000000;
+        try {
+            if (args.length > 0)
+                count = Integer.parseInt(args[0]);
+        } catch (NumberFormatException n) {
+            System.out.println("INVALID ARGUMENT: Number of states must be an Integer");
+            return;
+        }
+
+        long[] states = new long[count];
+        for (int i = 0; i < count; i++)
+            states[i] = ScrambleGenerator.scramble(ScrambleGenerator.instanceSeed(1, i), 40);
+
+        int[] scalar = new int[count];
+        int[] batch = new int[count];
+
+        System.out.println(VECTORIZED ? "Vector API available, " + VECTOR.lanes() + " states per vector"
+                : "Vector API not used, using scalar code");
+
+        for (int heuristic = SolveOptions.MISPLACED_TILES; heuristic <= SolveOptions.MANHATTAN_DISTANCE; heuristic++) {
+            long scalarTime = Long.MAX_VALUE;
+            long batchTime = Long.MAX_VALUE;
+
+            for (int round = 0; round < 10; round++) {
+                long start = System.nanoTime();
+                evaluateScalar(states, 0, count, heuristic, scalar);
+                scalarTime = Math.min(scalarTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                evaluate(states, count, heuristic, batch);
+                batchTime = Math.min(batchTime, System.nanoTime() - start);
+            }
+
+            if (!java.util.Arrays.equals(scalar, batch))
+                System.out.println("Batch results do not match the scalar results for h" + heuristic);
+
+            System.out.println("h" + heuristic + ": scalar " + count * 1000L / Math.max(1, scalarTime) +
+                    " states/us, batch " + count * 1000L / Math.max(1, batchTime) + " states/us");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * A thread safe beam search over packed states
+ * Every level keeps only the beam width states with the lowest heuristic estimate,
+ * and the children of a level are scored together with BatchHeuristics
+ * States seen on an earlier level are not generated again
+ * Like solve beam in Main, solutions are not always the shortest and some are not found at all
+ *
+ * @author calebcain
+ */
+public class BeamSolver extends AbstractSolver {
+
+    /**
+     * one more than the highest estimate either heuristic can give
+     */
+    private static final int MAX_ESTIMATE = 64;
+
+    @Override
+    protected String algorithm(SolveOptions options) {
+        return "Beam";
+    }
+
+    @Override
+    protected SolveResult search(long start, SolveOptions options, SearchBudget budget) {
+        SearchContext context = SearchContext.forThread();
+        context.reset(1.0);
+
+        // the beam grows with the levels, so a huge width costs nothing until states fill it
+        int width = options.getBeamWidth();
+        int[] beam = new int[Math.min(width, 4)];
+        int[] counts = new int[MAX_ESTIMATE + 1];
+
+        int root = context.addNode(start, 0, estimate(start, options.getHeuristic()), -1, -1);
+        context.put(start, root);
+        if (start == PackedState.GOAL)
+            return new SolveResult(SolveResult.Status.SOLVED, new byte[0], 1, 0, budget.elapsedMillis());
+
+        beam[0] = root;
+        int beamSize = 1;
+        int nodesGenerated = 1;
+        int nodesExpanded = 0;
+
+        // the open list time is the time spent picking the beam of each level
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
+        while (beamSize > 0) {
+            timer.start();
+            context.ensureBatchCapacity(4 * beamSize);
+            int batchSize = 0;
+
+            for (int b = 0; b < beamSize; b++) {
+                int node = beam[b];
+
+                if (budget.exhausted(nodesExpanded))
+                    return stopped(budget, context, nodesGenerated, nodesExpanded, 0);
+                timer.progress(nodesGenerated, nodesExpanded, beamSize, context.weightedCost(node));
+                nodesExpanded++;
+
+                long state = context.states[node];
+                int blank = PackedState.blankIndex(state);
+
+                for (int direction : PackedState.MOVES[blank]) {
+                    long child = PackedState.move(state, blank, direction);
+                    if (context.find(child) >= 0)
+                        continue;
+
+                    int added = context.addNode(child, context.g[node] + 1, SearchContext.UNSCORED, node, direction);
+                    context.put(child, added);
+
+                    if (child == PackedState.GOAL)
+                        return new SolveResult(SolveResult.Status.SOLVED, context.path(added),
+                                nodesGenerated + 1, nodesExpanded, budget.elapsedMillis());
+
+                    context.batchStates[batchSize] = child;
+                    context.batchNodes[batchSize] = added;
+                    batchSize++;
+
+                    if (++nodesGenerated > options.getMaxNodes())
+                        return new SolveResult(SolveResult.Status.NODE_LIMIT, null,
+                                nodesGenerated, nodesExpanded, budget.elapsedMillis());
+                }
+            }
+
+            timer.addExpansion();
+            BatchHeuristics.evaluate(context.batchStates, batchSize, options.getHeuristic(), context.batchScores);
+
+            // keep the estimates with the nodes, so progress events can report their g + h and the closest node is tracked
+            for (int i = 0; i < batchSize; i++)
+                context.setEstimate(context.batchNodes[i], context.batchScores[i]);
+
+            timer.addHeuristic();
+            int needed = Math.min(width, batchSize);
+            if (beam.length < needed)
+                beam = java.util.Arrays.copyOf(beam, Math.min(width, Math.max(needed, 2 * beam.length)));
+            beamSize = selectBest(context, batchSize, width, beam, counts);
+            timer.addOpenList();
+        }
+
+        return new SolveResult(SolveResult.Status.EXHAUSTED, null, nodesGenerated, nodesExpanded, budget.elapsedMillis());
+    }
+
+    /**
+     * picks the states of a level with the lowest scores, with a counting sort since scores are small
+     * @param context the context holding the scored level
+     * @param batchSize the number of states in the level
+     * @param width the most states to pick
+     * @param beam the array to store the nodes of the picked states in, at least min(width, batchSize) long
+     * @param counts scratch space for the counting sort
+     * @return the number of states picked
+     */
+    private static int selectBest(SearchContext context, int batchSize, int width, int[] beam, int[] counts) {
+        if (batchSize <= width) {
+            System.arraycopy(context.batchNodes, 0, beam, 0, batchSize);
+            return batchSize;
+        }
+
+        java.util.Arrays.fill(counts, 0);
+        for (int i = 0; i < batchSize; i++)
+            counts[context.batchScores[i]]++;
+
+        // find the score the beam is cut at, and how many states with exactly that score fit
+        int cutoff = 0;
+        int below = 0;
+        while (below + counts[cutoff] < width)
+            below += counts[cutoff++];
+        int atCutoff = width - below;
+
+        int size = 0;
+        for (int i = 0; i < batchSize; i++) {
+            int score = context.batchScores[i];
+            if (score < cutoff || (score == cutoff && atCutoff-- > 0))
+                beam[size++] = context.batchNodes[i];
+        }
+
+        return size;
+    }
+}
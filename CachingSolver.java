@@ -0,0 +1,35 @@
+/**
+ * A solver that remembers the solutions found by another solver in a SolutionCache
+ * The cache does not know the options a solution was found with, so one cache should
+ * only be used with one heuristic, weight and algorithm
+ *
+ * @author calebcain
+ */
+public class CachingSolver implements Solver {
+
+    private final Solver solver;
+    private final SolutionCache cache;
+
+    /**
+     * Wraps a solver with a cache
+     * @param solver the solver to run when a state is not cached
+     * @param cache the cache to look solutions up in and store them to
+     */
+    public CachingSolver(Solver solver, SolutionCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    @Override
+    public SolveResult solve(long start, SolveOptions options, SearchBudget budget) {
+        byte[] cached = cache.get(start);
+        if (cached != null)
+            return new SolveResult(SolveResult.Status.SOLVED, cached, 0, 0, budget.elapsedMillis());
+
+        SolveResult result = solver.solve(start, options, budget);
+        if (result.isSolved())
+            cache.put(start, result.getMoves());
+
+        return result;
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A table of the exact number of moves from every state of the 8 puzzle to the goal,
+ * along with the first move of a shortest solution, indexed by PackedState.rank
+ *
+ * The table is built by a breadth first search out from the goal, one layer at a time,
+ * with each layer split into chunks that are expanded in parallel on a fork/join pool
+ * States are claimed with an atomic bitset so each is added to exactly one next layer
+ * The moves are chosen in a second parallel pass once every distance is known, each state taking the
+ * lowest direction code that leads one move closer to the goal, so the table is the same on every run
+ *
+ * Each entry is one byte: the distance in the low 5 bits and the move direction code in the next 2,
+ * or UNREACHABLE for states that cannot reach the goal
+ *
+ * The table shared by the rest of the program is loaded lazily on first use, memory mapped from
+ * the file named by the property puzzle.distanceTable, distances.tbl by default, so only the pages
+ * actually looked up are read. If the file does not exist the table is built and saved to it,
+ * if it exists but cannot be used the table is built in memory and the file is left alone
+ *
+ * Usage: java DistanceTable [threads] [file]
+ *
+ * @author calebcain
+ */
+public class DistanceTable {
+
+    public static final int MAGIC = 0x385A5044;
+    public static final int VERSION = 1;
+
+    /**
+     * the number of moves from the goal of the farthest states of the 8 puzzle, which fits in the 5 distance bits of an entry
+     */
+    public static final int MAX_DEPTH = 31;
+
+    /**
+     * the entry of a state that cannot reach the goal
+     */
+    public static final byte UNREACHABLE = (byte) 0xFF;
+
+    /**
+     * the number of frontier states a single fork/join task expands
+     */
+    private static final int CHUNK_SIZE = 2048;
+
+    private static final int HEADER_BYTES = 12;
+
+    /**
+     * the file the shared table is mapped from when the puzzle.distanceTable property is not set
+     */
+    public static final String DEFAULT_FILE = "distances.tbl";
+
+    private static volatile boolean sharedLoaded = false;
+    private static long sharedLoadMillis;
+    private static String sharedSource;
+
+    private final ByteBuffer entries;
+
+    /**
+     * Holds the shared table, the JVM only initializes this class the first time shared is called
+     */
+    private static class Shared {
+        static final DistanceTable TABLE = loadShared();
+    }
+
+    /**
+     * Wraps the entries of a table
+     * @param entries one byte per rank, as described in the class comment
+     */
+    private DistanceTable(ByteBuffer entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * gets the table shared by the whole program, mapping or building it on first use
+     * @return the shared table
+     */
+    public static DistanceTable shared() {
+        return Shared.TABLE;
+    }
+
+    /**
+     * checks if the shared table has been loaded yet, without loading it
+     * @return true if shared has been called
+     */
+    public static boolean isSharedLoaded() {
+        return sharedLoaded;
+    }
+
+    /**
+     * describes how the shared table was loaded, for startup reports
+     * @return where the table came from and how long it took, or a note that it is not loaded yet
+     */
+    public static String describeShared() {
+        if (!sharedLoaded)
+            return "not loaded";
+        return sharedSource + " in " + sharedLoadMillis + " ms";
+    }
+
+    /**
+     * maps the shared table from its file, or builds it and saves it there if the file does not exist
+     * a file that exists but is not a distance table, or cannot be read, is never overwritten
+     */
+    private static DistanceTable loadShared() {
+        long start = System.nanoTime();
+        String filename = System.getProperty("puzzle.distanceTable", DEFAULT_FILE);
+        DistanceTable table;
+
+        try {
+            table = load(filename);
+            sharedSource = "mapped from '" + filename + "'";
+        } catch (NoSuchFileException ex) {
+            table = generate(Runtime.getRuntime().availableProcessors());
+            sharedSource = "built";
+            try {
+                table.save(filename);
+                sharedSource = "built and saved to '" + filename + "'";
+            } catch (IOException saveEx) {
+                // the table still works, it is just built again next time
+            }
+        } catch (IOException ex) {
+            table = generate(Runtime.getRuntime().availableProcessors());
+            sharedSource = "built in memory, '" + filename + "' could not be used as a distance table";
+        }
+
+        sharedLoadMillis = (System.nanoTime() - start) / 1000000L;
+        sharedLoaded = true;
+        return table;
+    }
+
+    /**
+     * builds the table with a parallel breadth first search out from the goal state
+     * @param parallelism the number of threads to use, at least 1
+     * @return the complete table
+     */
+    public static DistanceTable generate(int parallelism) {
+        final byte[] table = new byte[PackedState.STATES];
+        java.util.Arrays.fill(table, UNREACHABLE);
+
+        AtomicLongArray visited = new AtomicLongArray((PackedState.STATES + 63) / 64);
+        int goal = PackedState.rank(PackedState.GOAL);
+        visited.set(goal / 64, 1L << (goal % 64));
+        table[goal] = 0;
+
+        int[] frontier = {goal};
+        int frontierSize = 1;
+        int[] next = new int[PackedState.STATES];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int depth = 1; frontierSize > 0; depth++) {
+                AtomicInteger nextSize = new AtomicInteger();
+                pool.invoke(new ExpandLayer(frontier, 0, frontierSize, next, nextSize, visited, table, depth));
+
+                // swap the layers, the new frontier is the first nextSize entries of next
+                int[] expanded = frontier;
+                frontier = next;
+                frontierSize = nextSize.get();
+                next = expanded.length == PackedState.STATES ? expanded : new int[PackedState.STATES];
+            }
+
+            pool.invoke(new ChooseMoves(table, 0, PackedState.STATES));
+        } finally {
+            pool.shutdown();
+        }
+
+        return new DistanceTable(ByteBuffer.wrap(table));
+    }
+
+    /**
+     * Expands a range of one layer of the breadth first search, splitting it in half until it is one chunk
+     */
+    private static class ExpandLayer extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final int[] next;
+        private final AtomicInteger nextSize;
+        private final AtomicLongArray visited;
+        private final byte[] table;
+        private final int depth;
+
+        ExpandLayer(int[] frontier, int from, int to, int[] next, AtomicInteger nextSize,
+                    AtomicLongArray visited, byte[] table, int depth) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.next = next;
+            this.nextSize = nextSize;
+            this.visited = visited;
+            this.table = table;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandLayer(frontier, from, middle, next, nextSize, visited, table, depth),
+                        new ExpandLayer(frontier, middle, to, next, nextSize, visited, table, depth));
+                return;
+            }
+
+            // collect the states this chunk claims, then copy them into the next layer in one block
+            int[] claimed = new int[4 * (to - from)];
+            int count = 0;
+
+            for (int i = from; i < to; i++) {
+                long packed = PackedState.unrank(frontier[i]);
+                int blank = PackedState.blankIndex(packed);
+
+                for (int direction : PackedState.MOVES[blank]) {
+                    int child = PackedState.rank(PackedState.move(packed, blank, direction));
+                    if (claim(child)) {
+                        table[child] = (byte) depth;
+                        claimed[count++] = child;
+                    }
+                }
+            }
+
+            int start = nextSize.getAndAdd(count);
+            System.arraycopy(claimed, 0, next, start, count);
+        }
+
+        /**
+         * marks a state as visited
+         * @param rank the rank of the state
+         * @return true if this call visited the state, false if it had already been visited
+         */
+        private boolean claim(int rank) {
+            int word = rank >>> 6;
+            long bit = 1L << (rank & 63);
+
+            while (true) {
+                long current = visited.get(word);
+                if ((current & bit) != 0)
+                    return false;
+                if (visited.compareAndSet(word, current, current | bit))
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Stores the first move of a shortest solution in the entries of a range of ranks, splitting it in half
+     * until it is one chunk. The distances must all be known, the move chosen is the lowest direction code
+     * whose neighbour is one move closer to the goal, so it does not depend on which thread found the state
+     */
+    private static class ChooseMoves extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] table;
+        private final int from;
+        private final int to;
+
+        ChooseMoves(byte[] table, int from, int to) {
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChooseMoves(table, from, middle), new ChooseMoves(table, middle, to));
+                return;
+            }
+
+            for (int rank = from; rank < to; rank++) {
+                byte entry = table[rank];
+                if (entry == UNREACHABLE || entry == 0)
+                    continue;
+
+                long packed = PackedState.unrank(rank);
+                int blank = PackedState.blankIndex(packed);
+
+                // MOVES lists the directions in increasing order, so the first match is the lowest code
+                for (int direction : PackedState.MOVES[blank]) {
+                    byte neighbour = table[PackedState.rank(PackedState.move(packed, blank, direction))];
+                    if (neighbour != UNREACHABLE && (neighbour & 0x1F) == entry - 1) {
+                        table[rank] = (byte) (entry | direction << 5);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * gets the number of moves from a state to the goal
+     * @param packed the packed state
+     * @return the length of a shortest solution, or -1 if the state cannot reach the goal
+     */
+    public int distance(long packed) {
+        byte entry = entries.get(PackedState.rank(packed));
+        return entry == UNREACHABLE ? -1 : entry & 0x1F;
+    }
+
+    /**
+     * gets the first move of a shortest solution from a state
+     * @param packed the packed state
+     * @return the direction code of the move, or -1 if the state is the goal or cannot reach it
+     */
+    public int nextMove(long packed) {
+        byte entry = entries.get(PackedState.rank(packed));
+        if (entry == UNREACHABLE || (entry & 0x1F) == 0)
+            return -1;
+        return (entry >>> 5) & 3;
+    }
+
+    /**
+     * follows the table from a state to the goal
+     * @param packed the packed state
+     * @return the direction codes of a shortest solution, or null if the state cannot reach the goal
+     */
+    public byte[] solution(long packed) {
+        int distance = distance(packed);
+        if (distance < 0)
+            return null;
+
+        byte[] moves = new byte[distance];
+        for (int i = 0; i < distance; i++) {
+            int direction = nextMove(packed);
+            moves[i] = (byte) direction;
+            packed = PackedState.move(packed, PackedState.blankIndex(packed), direction);
+        }
+
+        return moves;
+    }
+
+    /**
+     * counts the states at each distance from the goal
+     * @return the number of states n moves from the goal, indexed by n
+     */
+    public int[] layerSizes() {
+        int[] sizes = new int[MAX_DEPTH + 1];
+        for (int rank = 0; rank < PackedState.STATES; rank++) {
+            byte entry = entries.get(rank);
+            if (entry != UNREACHABLE)
+                sizes[entry & 0x1F]++;
+        }
+
+        return sizes;
+    }
+
+    /**
+     * writes the table to a file
+     * @param filename the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(PackedState.STATES).flip();
+
+            ByteBuffer body = entries.duplicate();
+            body.clear();
+
+            channel.write(new ByteBuffer[] {header, body});
+            while (body.hasRemaining())
+                channel.write(body);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * maps a table written by save into memory, the entries are read from the file as they are used
+     * @param filename the file to read
+     * @return the table
+     * @throws IOException if the file cannot be read or is not a distance table
+     */
+    public static DistanceTable load(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            if (channel.size() != HEADER_BYTES + PackedState.STATES)
+                throw new IOException("File '" + filename + "' is not a distance table");
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != PackedState.STATES)
+                throw new IOException("File '" + filename + "' is not a distance table");
+
+            return new DistanceTable(buffer.slice());
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * main method to build the table, print how long it took and optionally save it
+     * @param args the number of threads, defaulting to the number of processors, and the file to save to
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            if (args.length > 0)
+                threads = Integer.parseInt(args[0]);
+        } catch (NumberFormatException n) {
+            System.out.println("INVALID ARGUMENT: Number of threads must be an Integer");
+            return;
+        }
+        if (threads < 1) {
+            System.out.println("INVALID ARGUMENT: Number of threads must be at least 1");
+            return;
+        }
+
+        long start = System.nanoTime();
+        DistanceTable table = generate(threads);
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+
+        int[] sizes = table.layerSizes();
+        int total = 0;
+        for (int d = 0; d < sizes.length; d++) {
+            System.out.println("Distance " + d + ": " + sizes[d] + " states");
+            total += sizes[d];
+        }
+        System.out.println("Built table of " + total + " states with " + threads + " threads in " + elapsed + " ms");
+
+        if (args.length > 1) {
+            try {
+                table.save(args[1]);
+                System.out.println("Saved table to '" + args[1] + "'");
+            } catch (IOException ex) {
+                System.out.println("Error writing file '" + args[1] + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,475 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Reads and writes 8 puzzle instances and solutions in a compact binary format
+ * Files are read through memory mapped buffers and written from direct buffers straight to the channel
+ *
+ * Instance files (.pzi): a header of magic, version and count ints,
+ * then one int per instance holding cells 0 to 7 of its packed state,
+ * cell 8 is left out since it is the one tile missing from the other 8
+ *
+ * Result files (.pzr): the same header, then per solution an int state as above,
+ * a short number of moves, at most MAX_MOVES, and the move direction codes packed 4 to a byte
+ *
+ * Result files are written by running 'java Main in.pzi out.pzr command' or converted from text
+ *
+ * Usage: java InstanceFile toBinary in.txt out.pzi
+ *        java InstanceFile toText in.pzi out.txt [command...]
+ *        java InstanceFile resultsToBinary in.txt out.pzr
+ *        java InstanceFile resultsToText in.pzr out.txt
+ *
+ * @author calebcain
+ */
+public class InstanceFile {
+
+    public static final int INSTANCE_MAGIC = 0x385A5049;
+    public static final int RESULT_MAGIC = 0x385A5052;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * the most moves a solution in a result file can have, its length is stored as a short
+     */
+    public static final int MAX_MOVES = Short.MAX_VALUE;
+
+    /**
+     * the tiles 0 to 8 summed, used to recover the cell left out of a record
+     */
+    private static final int TILE_SUM = 36;
+
+    /**
+     * writes instances to a binary instance file
+     * @param filename the file to write to
+     * @param states the packed states of the instances
+     * @param count the number of states to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeInstances(String filename, long[] states, int count) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(INSTANCE_MAGIC).putInt(VERSION).putInt(count);
+
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 4)
+                    drain(channel, buffer);
+                buffer.putInt(toRecord(states[i]));
+            }
+
+            drain(channel, buffer);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * reads all instances of a binary instance file
+     * @param filename the file to read
+     * @return the packed states of the instances
+     * @throws IOException if the file cannot be read or is not an instance file
+     */
+    public static long[] readInstances(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = readHeader(buffer, INSTANCE_MAGIC, filename);
+
+            if (buffer.remaining() < 4L * count)
+                throw new IOException("File '" + filename + "' is truncated");
+
+            IntBuffer records = buffer.asIntBuffer();
+            long[] states = new long[count];
+            for (int i = 0; i < count; i++) {
+                states[i] = fromRecord(records.get(i));
+                if (!PackedState.isValid(states[i]))
+                    throw new IOException("File '" + filename + "' holds an invalid state");
+            }
+
+            return states;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * writes solutions to a binary result file
+     * @param filename the file to write to
+     * @param states the packed start states of the solutions
+     * @param moves the move direction codes of each solution, as used by PackedState
+     * @param count the number of solutions to write
+     * @throws IOException if the file cannot be written or a solution has more than MAX_MOVES moves
+     */
+    public static void writeResults(String filename, long[] states, byte[][] moves, int count) throws IOException {
+        // checked before the file is opened so a solution that does not fit leaves no partial file behind
+        for (int i = 0; i < count; i++)
+            if (moves[i].length > MAX_MOVES)
+                throw new IOException("Solution " + (i + 1) + " has " + moves[i].length +
+                        " moves, a result file holds at most " + MAX_MOVES);
+
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(RESULT_MAGIC).putInt(VERSION).putInt(count);
+
+            for (int i = 0; i < count; i++) {
+                byte[] solution = moves[i];
+                int packedBytes = (solution.length + 3) / 4;
+                if (buffer.remaining() < 6 + packedBytes)
+                    drain(channel, buffer);
+
+                buffer.putInt(toRecord(states[i]));
+                buffer.putShort((short) solution.length);
+
+                for (int b = 0; b < packedBytes; b++) {
+                    int packed = 0;
+                    for (int m = 0; m < 4 && 4 * b + m < solution.length; m++)
+                        packed |= solution[4 * b + m] << (2 * m);
+                    buffer.put((byte) packed);
+                }
+            }
+
+            drain(channel, buffer);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * reads all solutions of a binary result file
+     * @param filename the file to read
+     * @param states an array to store the packed start states in, at least as long as the file's count
+     * @return the move direction codes of each solution
+     * @throws IOException if the file cannot be read or is not a result file
+     */
+    public static byte[][] readResults(String filename, long[] states) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = readHeader(buffer, RESULT_MAGIC, filename);
+
+            // every solution takes at least its state and length
+            if (buffer.remaining() < 6L * count)
+                throw new IOException("File '" + filename + "' is truncated");
+
+            byte[][] moves = new byte[count][];
+            for (int i = 0; i < count; i++) {
+                states[i] = fromRecord(buffer.getInt());
+                if (!PackedState.isValid(states[i]))
+                    throw new IOException("File '" + filename + "' holds an invalid state");
+
+                int length = buffer.getShort();
+                if (length < 0)
+                    throw new IOException("File '" + filename + "' is malformed");
+                byte[] solution = new byte[length];
+
+                for (int b = 0; b < (solution.length + 3) / 4; b++) {
+                    int packed = buffer.get();
+                    for (int m = 0; m < 4 && 4 * b + m < solution.length; m++)
+                        solution[4 * b + m] = (byte) ((packed >>> (2 * m)) & 3);
+                }
+
+                moves[i] = solution;
+            }
+
+            return moves;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("File '" + filename + "' is truncated");
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * converts the setState commands of a text command file to a binary instance file
+     * lines that are not setState commands are skipped, as are setState commands with invalid states,
+     * which are reported since packing them would store a different state
+     * @param textFile the text file to read
+     * @param binaryFile the instance file to write
+     * @return the number of instances converted
+     * @throws IOException if either file cannot be used
+     */
+    public static int textToBinary(String textFile, String binaryFile) throws IOException {
+        long[] states = new long[1024];
+        int count = 0;
+        int lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new FileReader(textFile), BUFFER_BYTES);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.regionMatches(true, 0, "setState ", 0, 9))
+                    continue;
+                if (!PackedState.isValid(line.substring(9))) {
+                    invalidLine(textFile, lineNumber, line);
+                    continue;
+                }
+
+                if (count == states.length)
+                    states = Arrays.copyOf(states, 2 * count);
+                states[count++] = PackedState.pack(line.substring(9));
+            }
+        } finally {
+            reader.close();
+        }
+
+        writeInstances(binaryFile, states, count);
+        return count;
+    }
+
+    /**
+     * converts a binary instance file to setState commands
+     * @param binaryFile the instance file to read
+     * @param textFile the text file to write
+     * @param command a command written after every instance, or null for none
+     * @return the number of instances converted
+     * @throws IOException if either file cannot be used
+     */
+    public static int binaryToText(String binaryFile, String textFile, String command) throws IOException {
+        long[] states = readInstances(binaryFile);
+        char[] line = "setState xxx xxx xxx\n".toCharArray();
+
+        Writer writer = new BufferedWriter(new FileWriter(textFile), BUFFER_BYTES);
+        try {
+            for (long state : states) {
+                PackedState.writeState(state, line, 9);
+                writer.write(line);
+                if (command != null)
+                    writer.write(command + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+
+        return states.length;
+    }
+
+    /**
+     * converts setState commands, each followed by the move commands of its solution, to a binary result file
+     * this reads the files resultsToText writes, lines that are neither setState nor move commands are skipped
+     * setState commands with invalid states are reported and skipped along with their moves
+     * @param textFile the text file to read
+     * @param binaryFile the result file to write
+     * @return the number of solutions converted
+     * @throws IOException if either file cannot be used
+     */
+    public static int textToResults(String textFile, String binaryFile) throws IOException {
+        long[] states = new long[1024];
+        byte[][] moves = new byte[1024][];
+        byte[] solution = new byte[64];
+        int length = 0;
+        int count = 0;
+        int lineNumber = 0;
+        boolean skipping = false;
+
+        BufferedReader reader = new BufferedReader(new FileReader(textFile), BUFFER_BYTES);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.regionMatches(true, 0, "setState ", 0, 9)) {
+                    // the moves read so far belong to the previous state, unless it was skipped
+                    if (count > 0 && !skipping)
+                        moves[count - 1] = Arrays.copyOf(solution, length);
+                    length = 0;
+
+                    skipping = !PackedState.isValid(line.substring(9));
+                    if (skipping) {
+                        invalidLine(textFile, lineNumber, line);
+                        continue;
+                    }
+
+                    if (count == states.length) {
+                        states = Arrays.copyOf(states, 2 * count);
+                        moves = Arrays.copyOf(moves, 2 * count);
+                    }
+
+                    states[count++] = PackedState.pack(line.substring(9));
+                }
+                else if (count > 0 && !skipping && line.regionMatches(true, 0, "move ", 0, 5)) {
+                    int direction = PackedState.directionCode(line.substring(5).trim());
+                    if (direction < 0)
+                        continue;
+
+                    if (length == solution.length)
+                        solution = Arrays.copyOf(solution, 2 * length);
+                    solution[length++] = (byte) direction;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (count > 0 && !skipping)
+            moves[count - 1] = Arrays.copyOf(solution, length);
+
+        writeResults(binaryFile, states, moves, count);
+        return count;
+    }
+
+    /**
+     * converts a binary result file to setState commands followed by the move commands of each solution
+     * @param binaryFile the result file to read
+     * @param textFile the text file to write
+     * @return the number of solutions converted
+     * @throws IOException if either file cannot be used
+     */
+    public static int resultsToText(String binaryFile, String textFile) throws IOException {
+        long[] states = new long[countResults(binaryFile)];
+        byte[][] moves = readResults(binaryFile, states);
+
+        Writer writer = new BufferedWriter(new FileWriter(textFile), BUFFER_BYTES);
+        try {
+            for (int i = 0; i < states.length; i++) {
+                writer.write("setState " + PackedState.toStateString(states[i]) + "\n");
+                for (byte direction : moves[i])
+                    writer.write("move " + PackedState.DIRECTION_NAMES[direction].toLowerCase() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+
+        return states.length;
+    }
+
+    /**
+     * counts the solutions in a binary result file without reading them
+     * @param filename the file to read
+     * @return the number of solutions in the file
+     * @throws IOException if the file cannot be read or is not a result file
+     */
+    private static int countResults(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            int count = readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES), RESULT_MAGIC, filename);
+
+            // every solution takes at least its state and length, so a larger count cannot be right
+            if (channel.size() - HEADER_BYTES < 6L * count)
+                throw new IOException("File '" + filename + "' is truncated");
+            return count;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * reports a setState command that is skipped because its state is not a permutation of b and 1 to 8
+     * @param filename the file being read
+     * @param lineNumber the number of the line, from 1
+     * @param line the line
+     */
+    private static void invalidLine(String filename, int lineNumber, String line) {
+        System.out.println("Skipping invalid state on line " + lineNumber + " of '" + filename + "': " + line);
+    }
+
+    /**
+     * checks the header of a file and skips past it
+     * @param buffer the buffer holding the file
+     * @param magic the magic number the file must start with
+     * @param filename the name of the file, for error messages
+     * @return the number of records in the file
+     * @throws IOException if the header is missing or does not match
+     */
+    private static int readHeader(ByteBuffer buffer, int magic, String filename) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != magic)
+            throw new IOException("File '" + filename + "' is not a puzzle file of the expected type");
+        if (buffer.getInt() != VERSION)
+            throw new IOException("File '" + filename + "' has an unsupported version");
+
+        int count = buffer.getInt();
+        if (count < 0)
+            throw new IOException("File '" + filename + "' is malformed");
+        return count;
+    }
+
+    /**
+     * writes everything in a buffer to a channel and clears it for reuse
+     * @param channel the channel to write to
+     * @param buffer the buffer to drain
+     * @throws IOException if the channel cannot be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * drops cell 8 of a packed state so it fits in an int
+     * @param packed the packed state
+     * @return the record holding cells 0 to 7
+     */
+    private static int toRecord(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * restores cell 8 of a record, the tile missing from cells 0 to 7
+     * @param record the record holding cells 0 to 7
+     * @return the packed state
+     */
+    private static long fromRecord(int record) {
+        long packed = record & 0xFFFFFFFFL;
+        int sum = 0;
+        for (int cell = 0; cell < 8; cell++)
+            sum += PackedState.tileAt(packed, cell);
+
+        return packed | (long) (TILE_SUM - sum) << 32;
+    }
+
+    /**
+     * main method to convert between text command files and binary files
+     * @param args the conversion and the files to convert between
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: java InstanceFile toBinary in.txt out.pzi\n" +
+                    "       java InstanceFile toText in.pzi out.txt [command...]\n" +
+                    "       java InstanceFile resultsToBinary in.txt out.pzr\n" +
+                    "       java InstanceFile resultsToText in.pzr out.txt");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            int count;
+
+            if (args[0].equalsIgnoreCase("toBinary"))
+                count = textToBinary(args[1], args[2]);
+            else if (args[0].equalsIgnoreCase("toText")) {
+                String command = null;
+                if (args.length > 3)
+                    command = String.join(" ", Arrays.copyOfRange(args, 3, args.length));
+                count = binaryToText(args[1], args[2], command);
+            }
+            else if (args[0].equalsIgnoreCase("resultsToBinary"))
+                count = textToResults(args[1], args[2]);
+            else if (args[0].equalsIgnoreCase("resultsToText"))
+                count = resultsToText(args[1], args[2]);
+            else {
+                System.out.println("INVALID COMMAND: Valid conversions are toBinary, toText, resultsToBinary " +
+                        "and resultsToText");
+                return;
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1000000L;
+            System.out.println("Converted " + count + " entries from '" + args[1] + "' to '" + args[2] +
+                    "' in " + elapsed + " ms");
+        } catch (FileNotFoundException ex) {
+            System.out.println("Unable to open file '" + args[1] + "'");
+        } catch (NoSuchFileException ex) {
+            System.out.println("Unable to open file '" + ex.getFile() + "'");
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+}
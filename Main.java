@@ -9,6 +9,14 @@ import java.io.*;
 
 public class Main {
 
+    /**
+     * Creates a puzzle that is driven by calling processArguments, without reading any input,
+     * so a program embedding it can run commands on one thread and cancel them from another
+     */
+    public Main() {
+        setMaxNodes(100000);
+    }
+
     public Main(String[] args) {
         maxNodes(100000);
 
@@ -43,6 +51,61 @@ public class Main {
                 System.out.println("Error reading file '" + filename + "'");
             }
         }
+        else if (args.length > 1 && args[0].endsWith(".pzi")) {
+
+            // run the command given after the file on every instance in it,
+            // saving the solutions found to a result file if one is named before the command
+            // each --cmd after the command starts a setup command, such as timeLimit or maxNodes, run once before the batch
+            String filename = args[0];
+            String resultFile = args.length > 2 && args[1].endsWith(".pzr") ? args[1] : null;
+            int end = resultFile == null ? 1 : 2;
+            while (end < args.length && !args[end].equals(SETUP_COMMAND))
+                end++;
+            String[] command = Arrays.copyOfRange(args, resultFile == null ? 1 : 2, end);
+
+            while (end < args.length) {
+                int begin = end + 1;
+                end = begin;
+                while (end < args.length && !args[end].equals(SETUP_COMMAND))
+                    end++;
+                processArguments(Arrays.copyOfRange(args, begin, end));
+            }
+
+            long[] states = null;
+            try {
+                states = InstanceFile.readInstances(filename);
+            } catch (IOException ex) {
+                System.out.println("Error reading file '" + filename + "'");
+            }
+
+            if (states != null) {
+                long[] solved = new long[states.length];
+                byte[][] solutions = new byte[states.length][];
+                int count = 0;
+
+                for (long state : states) {
+                    String[] rows = PackedState.toStateString(state).split(" ");
+                    setState(rows[0], rows[1], rows[2]);
+                    lastSolution = null;
+                    processArguments(command);
+
+                    if (lastSolution != null) {
+                        solved[count] = state;
+                        solutions[count++] = lastSolution;
+                    }
+                }
+
+                if (resultFile != null) {
+                    try {
+                        InstanceFile.writeResults(resultFile, solved, solutions, count);
+                        System.out.println("Saved " + count + " of " + states.length + " solutions to '" +
+                                resultFile + "'");
+                    } catch (IOException ex) {
+                        System.out.println("Error writing file '" + resultFile + "': " + ex.getMessage());
+                    }
+                }
+            }
+        }
 
         getUserInput(args);
     }
@@ -62,6 +125,33 @@ public class Main {
      */
     private int maxNodes = 0;
 
+    /**
+     *  the max number of milliseconds to search for a solution before stopping, 0 if there is no limit
+     */
+    private long timeLimit = 0;
+
+    /**
+     * the budget of the search currently running, or of the last one to run
+     * created by processArguments before a solve command is dispatched, so the whole solve can be cancelled,
+     * or by the solve method itself when it is called directly
+     */
+    private SearchBudget budget;
+
+    /**
+     * the moves of the solution printed by the last solve command, see PackedState, or null if it found none
+     */
+    private byte[] lastSolution;
+
+    /**
+     * the solutions found by the packed state solves, one cache for each algorithm and set of options
+     */
+    private final Map<String, SolutionCache> caches = new HashMap<String, SolutionCache>();
+
+    /**
+     * true while a solve command is running, guarded by this
+     */
+    private boolean searching = false;
+
     /**
      * priority queue for search
      */
@@ -71,6 +161,32 @@ public class Main {
 
     private Node goalNode = new Node(goalState, null, 0);
 
+    /**
+     * the argument that starts each setup command run once before a batch of instances
+     */
+    private static final String SETUP_COMMAND = "--cmd";
+
+    /**
+     * the max number of solutions kept for each algorithm and set of options
+     */
+    private static final int CACHE_CAPACITY = 10000;
+
+    /**
+     * the seed used to randomize the puzzle when none is given
+     */
+    private static final long RANDOMIZE_SEED = 373456123;
+
+    /**
+     * the time main was entered at, from System.nanoTime and System.currentTimeMillis
+     */
+    private static long mainStartNanos;
+    private static long mainStartMillis;
+
+    /**
+     * the time the first prompt was shown at, from System.nanoTime, 0 until then
+     */
+    private static long firstPromptNanos = 0;
+
     /**
      * gets the max amount of nodes a search algorithm is to search before stopping
      * @return the max number of nodes
@@ -87,6 +203,117 @@ public class Main {
         maxNodes = newMaxNodes;
     }
 
+    /**
+     * gets the max number of milliseconds a search algorithm is to run before stopping
+     * @return the time limit in milliseconds, 0 if there is no limit
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * sets the max number of milliseconds a search algorithm is to run before stopping
+     * @param newTimeLimit the new time limit in milliseconds, 0 to remove the limit
+     */
+    public void setTimeLimit(long newTimeLimit) {
+        timeLimit = newTimeLimit;
+    }
+
+    /**
+     * cancels the solve command that is currently running, a cancel with no solve running does nothing
+     * safe to call from another thread, the search stops and prints its best partial result
+     * @return true if a running solve was cancelled
+     */
+    public synchronized boolean cancel() {
+        if (!searching)
+            return false;
+
+        budget.cancel();
+        return true;
+    }
+
+    /**
+     * gets the budget of the solve command that is currently running, to cancel that solve and no other
+     * @return the budget of the running solve, or null if no solve is running
+     */
+    public synchronized SearchBudget getRunningBudget() {
+        return searching ? budget : null;
+    }
+
+    /**
+     * creates the budget of a solve, unless one is already running, in which case its budget is kept
+     * @return true if a new solve was started, which must then be finished with finishSearch
+     */
+    private synchronized boolean startSearch() {
+        if (searching)
+            return false;
+
+        lastSolution = null;
+        budget = new SearchBudget(getTimeLimit());
+        searching = true;
+        return true;
+    }
+
+    /**
+     * marks the solve command as finished, later cancels do nothing until the next one starts
+     */
+    private synchronized void finishSearch() {
+        searching = false;
+    }
+
+    /**
+     * runs a search within the budget of the running solve, or of a new one if no solve is running,
+     * so the solve methods can be called directly as well as through processArguments
+     * @param search the search to run
+     */
+    private void runSearch(Runnable search) {
+        boolean started = startSearch();
+        try {
+            search.run();
+        } finally {
+            if (started)
+                finishSearch();
+        }
+    }
+
+    /**
+     * wraps a solver with the cache of the solutions it found with the same options,
+     * so a state solved before, or its reflection, is not searched again
+     * ARA* is not cached, as the solution it returns depends on how long it was given
+     * @param solver the solver to wrap
+     * @param algorithm the name of the algorithm of the solver
+     * @param options the options of the solve
+     * @return the solver wrapped with its cache
+     */
+    private Solver cached(Solver solver, String algorithm, SolveOptions options) {
+        String key = algorithm + " h" + options.getHeuristic() + " w" + options.getWeight() +
+                " k" + options.getBeamWidth();
+        SolutionCache cache = caches.get(key);
+        if (cache == null) {
+            cache = new SolutionCache(CACHE_CAPACITY);
+            caches.put(key, cache);
+        }
+
+        return new CachingSolver(solver, cache);
+    }
+
+    /**
+     * runs a Solver within the budget of the running solve, or of a new one if no solve is running
+     * @param solver the solver to run
+     * @param start the packed start state
+     * @param options the options of the solve
+     * @return the result of the solve
+     */
+    private SolveResult runSolver(Solver solver, long start, SolveOptions options) {
+        boolean started = startSearch();
+        try {
+            return solver.solve(start, options, budget);
+        } finally {
+            if (started)
+                finishSearch();
+        }
+    }
+
     /**
      * Represents a node which represents a game board
      */
@@ -94,6 +321,7 @@ public class Main {
         public Board board;
         public Node previous;
         public int moves;
+        public int estimate;
 
         public Node(Board gameboard, Node parent, int moveCount) {
             board = gameboard;
@@ -101,6 +329,11 @@ public class Main {
             moves = moveCount;
         }
 
+        public Node(Board gameboard, Node parent, int moveCount, int heuristicEstimate) {
+            this(gameboard, parent, moveCount);
+            estimate = heuristicEstimate;
+        }
+
         public int compareTo(Node otherNode) {
             if (heuristicOne() > otherNode.heuristicOne())
                 return 1;
@@ -117,6 +350,15 @@ public class Main {
         public int heuristicTwo() {
             return board.heuristicTwo();
         }
+
+        /**
+         * the weighted evaluation of the node, g + w * h
+         * @param weight the weight applied to the heuristic estimate
+         * @return the weighted f value of the node
+         */
+        public double weightedCost(double weight) {
+            return moves + weight * estimate;
+        }
     }
 
     /**
@@ -141,6 +383,21 @@ public class Main {
         System.out.println("INVALID ARGUMENT: Argument to this command must be an Integer");
     }
 
+    /**
+     *  prints a message when the weight given to a weighted search is not a valid number
+     */
+    public static void invalidWeight() {
+        System.out.println("INVALID ARGUMENT: Weight must be a number from 1 to " + (int) SolveOptions.MAX_WEIGHT);
+    }
+
+    /**
+     *  prints a message when a search that works on packed states is given a state it cannot pack
+     */
+    public static void invalidState() {
+        System.out.println("Solution not found.\n" +
+                "The state must hold the blank and the tiles 1 to 8 exactly once.\n");
+    }
+
     /**
      * Checks if the state of the puzzle is the goal state
      */
@@ -169,68 +426,31 @@ public class Main {
      * @param moves the number of random moves to make
      */
     public void randomizeState(Integer moves) {
+        randomizeState(moves, RANDOMIZE_SEED);
+    }
+
+    /**
+     * randomizes the state of the puzzle from the goal state with a given seed
+     * @param moves the number of random moves to make
+     * @param seed the seed of the random moves, the same seed always gives the same state
+     */
+    public void randomizeState(Integer moves, long seed) {
         currentState = goalState;
         System.out.println("\nRandomizing state of puzzle");
-        randomize(moves);
+        randomize(moves, seed);
     }
 
     /**
      * Picks random directions to move the blank tile and randomizes the puzzle
      * Starts with the goal state to assure a solution is possible
+     * Never undoes the previous move, so the puzzle is not left closer to the goal than needed
      * @param n the amount of random moves to make
+     * @param seed the seed of the random moves
      */
-    public void randomize(int n) {
-        Random randomDirection = new Random();
-        randomDirection.setSeed(373456123);
-
-        int movesPerformed = 0;
-        while (movesPerformed < n) {
-            int direction = 0;
-
-            /* choose a random move direction */
-            int random = Math.abs(randomDirection.nextInt() % 100);
-
-            if (random < 25)
-                direction = 1;
-            if (random >= 25 && random < 50)
-                direction = -1;
-            if (random >= 50 && random < 75)
-                direction = 3;
-            if (random >= 75 && random < 100)
-                direction = -3;
-
-            if (direction == 1) {
-                if (currentState.getBlankTileColumn() < 2) {
-                    Board nextState = new Board(currentState, currentState.moveBlank(direction), "Right");
-                    movesPerformed += 1;
-                    currentState = nextState;
-                }
-            }
-
-            if (direction == -1) {
-                if (currentState.getBlankTileColumn() > 0) {
-                    Board nextState = new Board(currentState, currentState.moveBlank(direction), "Left");
-                    movesPerformed += 1;
-                    currentState = nextState;
-                }
-            }
-
-            if (direction == 3) {
-                if (currentState.getBlankTileRow() < 2) {
-                    Board nextState = new Board(currentState, currentState.moveBlank(direction), "Down");
-                    movesPerformed += 1;
-                    currentState = nextState;
-                }
-            }
+    public void randomize(int n, long seed) {
+        long scrambled = ScrambleGenerator.scramble(seed, n);
+        currentState = new Board(null, PackedState.toStateString(scrambled), null);
 
-            if (direction == -3) {
-                if (currentState.getBlankTileRow() > 0) {
-                    Board nextState = new Board(currentState, currentState.moveBlank(direction), "Up");
-                    movesPerformed += 1;
-                    currentState = nextState;
-                }
-            }
-        }
         System.out.println("Puzzle state randomized, the current state is: " + currentState.getState());
     }
 
@@ -330,82 +550,417 @@ public class Main {
         System.out.println("Max number of nodes to search set to " + getMaxNodes());
     }
 
+    /**
+     *  specifies the max number of milliseconds any given search algorithm may run for
+     *  @param n the time limit in milliseconds, 0 for no limit
+     */
+    public void timeLimit(Integer n) {
+        setTimeLimit(n);
+        if (getTimeLimit() > 0)
+            System.out.println("Time limit for searches set to " + getTimeLimit() + " ms");
+        else
+            System.out.println("Time limit for searches removed");
+    }
+
     /**
      * solves the puzzle using a-star search with a given heuristic
      * @param heuristic the heuristic to use to solve the puzzle
      */
     public void solveAStar(String heuristic) {
 
-        if (heuristic.equalsIgnoreCase("h1")) {
+        int h = parseHeuristic(heuristic);
+        if (h != 0) {
             System.out.println("\nAttempting to solve using A* search with heuristic " + heuristic + "\n");
-            aStar(1);
+            aStar(h);
         }
-        else if (heuristic.equalsIgnoreCase("h2")) {
-            System.out.println("\nAttempting to solve using A* search with heuristic " + heuristic + "\n");
-            aStar(2);
+    }
+
+    /**
+     * solves the puzzle using weighted a-star search, f = g + w * h
+     * @param heuristic the heuristic to use to solve the puzzle
+     * @param weight the weight w applied to the heuristic, must be at least 1
+     */
+    public void solveWeightedAStar(String heuristic, String weight) {
+
+        int h = parseHeuristic(heuristic);
+        double w = parseWeight(weight);
+        if (h != 0 && w >= 1) {
+            System.out.println("\nAttempting to solve using weighted A* search with heuristic " + heuristic +
+                    " and weight " + w + "\n");
+            weightedAStar(h, w);
+        }
+    }
+
+    /**
+     * solves the puzzle using anytime repairing a-star search (ARA*)
+     * @param heuristic the heuristic to use to solve the puzzle
+     * @param weight the initial weight applied to the heuristic, must be at least 1
+     */
+    public void solveAraStar(String heuristic, String weight) {
+
+        int h = parseHeuristic(heuristic);
+        double w = parseWeight(weight);
+        if (h != 0 && w >= 1) {
+            System.out.println("\nAttempting to solve using ARA* search with heuristic " + heuristic +
+                    " and initial weight " + w + "\n");
+            araStar(h, w);
+        }
+    }
+
+    /**
+     * solves the puzzle using enhanced partial expansion a-star search (EPEA*)
+     * finds solutions as short as a-star while keeping a much smaller open list
+     * @param heuristic the heuristic to use to solve the puzzle
+     */
+    public void solvePartialExpansion(String heuristic) {
+
+        int h = parseHeuristic(heuristic);
+        if (h == 0)
+            return;
+        if (!PackedState.isValid(currentState.getState())) {
+            invalidState();
+            return;
+        }
+
+        System.out.println("\nAttempting to solve using EPEA* search with heuristic " + heuristic + "\n");
+
+        SolveOptions options = new SolveOptions();
+        options.setHeuristic(h);
+        options.setMaxNodes(getMaxNodes());
+
+        long start = PackedState.pack(currentState.getState());
+        printSolveResult(start, runSolver(cached(new PartialExpansionSolver(), "EPEA*", options), start, options));
+    }
+
+    /**
+     * solves the puzzle using beam search over packed states, one level at a time
+     * the children of each level are scored together, with the Vector API when it is available
+     * unlike solveBeam, whose k caps the whole open list, the width is the number of states kept at each level
+     * @param heuristic the heuristic to score states with
+     * @param width the number of states kept at each level
+     */
+    public void solveLevelBeam(String heuristic, String width) {
+
+        int h = parseHeuristic(heuristic);
+        if (h == 0)
+            return;
+
+        int k;
+        try {
+            k = Integer.parseInt(width);
+        } catch (NumberFormatException n) {
+            wrongInputType();
+            return;
+        }
+        if (k < 1) {
+            System.out.println("INVALID ARGUMENT: Beam width must be at least 1");
+            return;
+        }
+        if (!PackedState.isValid(currentState.getState())) {
+            invalidState();
+            return;
         }
+
+        System.out.println("\nAttempting to solve using level beam search with heuristic " + heuristic +
+                " and " + k + " states per level\n");
+
+        SolveOptions options = new SolveOptions();
+        options.setHeuristic(h);
+        options.setMaxNodes(getMaxNodes());
+        options.setBeamWidth(k);
+
+        long start = PackedState.pack(currentState.getState());
+        printSolveResult(start, runSolver(cached(new BeamSolver(), "Beam", options), start, options));
+    }
+
+    /**
+     * prints the solution found by a Solver, or why none was found, followed by the statistics of the search
+     * @param start the packed start state
+     * @param result the result of the solve
+     */
+    public void printSolveResult(long start, SolveResult result) {
+        if (result.isSolved())
+            printMoves(start, result.getMoves());
+        else if (result.getStatus() == SolveResult.Status.NODE_LIMIT)
+            System.out.println("Solution not found.\n" +
+                    "Max number of nodes to search exceeded.\n" +
+                    "May need to change or set number of max nodes to search if have not done so.\n");
+        else if (result.getStatus() == SolveResult.Status.UNSOLVABLE)
+            System.out.println("Solution not found.\nThis state cannot reach the goal state.\n");
+        else if (result.getStatus() == SolveResult.Status.EXHAUSTED)
+            System.out.println("Solution not found.\n" +
+                    "Beam search state space exceeded.\n" +
+                    "May need to change state space to search in order to find a solution\n");
+        else {
+            System.out.println("Solution not found.\n" + budget.stopReason() + "\n");
+            if (result.hasPartialResult())
+                System.out.println("Best partial result: " + PackedState.toStateString(result.getClosestState()) +
+                        " reached in " + result.getClosestMoves().length + " moves\n");
+        }
+
+        // beam search keeps no open list, so it has no peak size to report
+        System.out.println("Nodes generated: " + result.getNodesGenerated() +
+                "\nNodes expanded: " + result.getNodesExpanded() +
+                (result.getPeakOpenSize() > 0 ? "\nPeak open list size: " + result.getPeakOpenSize() : "") +
+                "\nElapsed time: " + result.getElapsedMillis() + " ms\n");
+    }
+
+    /**
+     * solves the puzzle by following the shared distance table, which gives a shortest solution without searching
+     * the table is mapped from its file, or built, the first time this is used
+     */
+    public void solveTable() {
+
+        if (!PackedState.isValid(currentState.getState())) {
+            invalidState();
+            return;
+        }
+
+        System.out.println("\nSolving using the distance table\n");
+
+        long start = PackedState.pack(currentState.getState());
+        byte[] moves = DistanceTable.shared().solution(start);
+
+        if (moves == null)
+            System.out.println("Solution not found.\nThis state cannot reach the goal state.\n");
         else
-            System.out.println("Plese enter a valid heuristic to use\nValid heuristics:\nh1\nh2");
+            printMoves(start, moves);
     }
 
     /**
-     * method to solve the puzzle using a given heuristic for a-star search
-     * prints the solution to the puzzle if there is one
-     *
+     * prints the moves of a solution found with packed states, then sets the puzzle to the state it ends at
+     * @param start the packed start state
+     * @param moves the direction codes of the solution, see PackedState
+     */
+    public void printMoves(long start, byte[] moves) {
+        lastSolution = moves;
+        if (moves.length == 0) {
+            System.out.println("Start state is the goal state, no moves needed\n");
+            return;
+        }
+
+        System.out.println("Start state is: " + currentState.getState() + "\n");
+
+        long state = start;
+        for (int i = 0; i < moves.length; i++) {
+            state = PackedState.move(state, PackedState.blankIndex(state), moves[i]);
+            System.out.println("Move Number: " + (i + 1) +
+                    "\nCurrent State: " + PackedState.toStateString(state) +
+                    "\nMove Direction: " + PackedState.DIRECTION_NAMES[moves[i]] + "\n");
+        }
+
+        currentState = new Board(null, PackedState.toStateString(state), null);
+        checkGoal();
+    }
+
+    /**
+     * converts the name of a heuristic to the number used by the search algorithms
+     * @param heuristic the name of the heuristic, h1 or h2
+     * @return 1 or 2 for a valid heuristic, 0 if the heuristic is not valid
+     */
+    private int parseHeuristic(String heuristic) {
+        if (heuristic.equalsIgnoreCase("h1"))
+            return 1;
+        if (heuristic.equalsIgnoreCase("h2"))
+            return 2;
+
+        System.out.println("Plese enter a valid heuristic to use\nValid heuristics:\nh1\nh2");
+        return 0;
+    }
+
+    /**
+     * converts the weight given to a weighted search to a number
+     * @param weight the weight as entered by the user
+     * @return the weight, or 0 if the weight is not valid
+     */
+    private double parseWeight(String weight) {
+        try {
+            // this also turns away NaN and Infinity, a huge weight would never be lowered to 1 by ARA*
+            double w = Double.parseDouble(weight);
+            if (w >= 1 && w <= SolveOptions.MAX_WEIGHT)
+                return w;
+        } catch (NumberFormatException n) {
+            // fall through to the error message
+        }
+
+        invalidWeight();
+        return 0;
+    }
+
+    /**
+     * computes the heuristic estimate of a board
+     * @param board the board to estimate
      * @param heuristic the heuristic to be used
+     * @return the estimated number of moves from the board to the goal
      */
-    public void aStar(final int heuristic) {
+    private int estimate(Board board, int heuristic) {
+        if (heuristic == 1)
+            return board.heuristicOne();
+        return board.heuristicTwo();
+    }
 
-        //creates a priority queue that orders by heuristic one, misplaced tiles
-        priorityQueue = new PriorityQueue<Node>(20, new Comparator<Node>() {
+    /**
+     * creates a priority queue that orders nodes by g + w * h
+     * @param weight the weight applied to the heuristic estimate
+     * @return an empty priority queue
+     */
+    private PriorityQueue<Node> weightedQueue(final double weight) {
+        return new PriorityQueue<Node>(20, new Comparator<Node>() {
             @Override
             public int compare(Node node, Node t1) {
-                if (heuristic == 1) {
-                    if ((node.moves + node.board.heuristicOne()) < (t1.board.heuristicOne() + t1.moves))
-                        return -1;
-                    if ((node.moves + node.board.heuristicOne()) > (t1.board.heuristicOne() + t1.moves))
-                        return 1;
-                    return 0;
-                }
-                if (heuristic == 2) {
-                    if ((node.moves + node.board.heuristicTwo()) < (t1.board.heuristicTwo() + t1.moves))
-                        return -1;
-                    if ((node.moves + node.board.heuristicTwo()) > (t1.board.heuristicTwo() + t1.moves))
-                        return 1;
-                    return 0;
-                }
-                return 0;
+                return Double.compare(node.weightedCost(weight), t1.weightedCost(weight));
             }
         });
+    }
+
+    /**
+     * method to solve the puzzle using a given heuristic for a-star search
+     * prints the solution to the puzzle if there is one
+     *
+     * @param heuristic the heuristic to be used
+     */
+    public void aStar(final int heuristic) {
+        runSearch(() -> aStarSearch(heuristic));
+    }
+
+    /**
+     * runs the a-star search of aStar within the budget of the solve
+     * @param heuristic the heuristic to be used
+     */
+    private void aStarSearch(final int heuristic) {
+
+        String algorithm = "A*";
+        Object solveEvent =
+                SearchEvents.solveStarted(algorithm, heuristic, 1.0, PackedState.pack(currentState.getState()));
+
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
+        priorityQueue = weightedQueue(1.0);
 
         int nodesVisited = 0;
-        currentNode = new Node(currentState, null, 0);
+        int nodesExpanded = 0;
+        currentNode = new Node(currentState, null, 0, estimate(currentState, heuristic));
         nodesVisited++;
         priorityQueue.add(currentNode);
 
+        Node closest = currentNode;
+
         while (currentNode.board.isGoal() == false) {
 
-            for (Board b : currentNode.board.neighbors()) {
+            if (budget.exhausted(nodesExpanded)) {
+                System.out.println("Solution not found.\n" + budget.stopReason() + "\n");
+                printPartialResult(closest);
+                printStatistics(nodesVisited, nodesExpanded);
+                SearchEvents.solveEnded(solveEvent, algorithm, budget.isCancelled() ? SolveResult.Status.CANCELLED
+                        : SolveResult.Status.TIME_LIMIT, -1, nodesVisited, nodesExpanded);
+                return;
+            }
+            timer.progress(nodesVisited, nodesExpanded, priorityQueue.size(), currentNode.weightedCost(1.0));
+            nodesExpanded++;
+
+            timer.start();
+            Iterable<Board> neighbors = currentNode.board.neighbors();
+            timer.addExpansion();
+
+            for (Board b : neighbors) {
 
                 if (!b.equals(currentNode.board)) {
-                    priorityQueue.add(new Node(b, currentNode, currentNode.moves + 1));
+                    timer.start();
+                    int h = estimate(b, heuristic);
+                    Node child = new Node(b, currentNode, currentNode.moves + 1, h);
+                    timer.addHeuristic();
+
+                    priorityQueue.add(child);
+                    timer.addOpenList();
                     nodesVisited++;
+
+                    closest = closer(closest, child);
                 }
 
                 if (nodesVisited > getMaxNodes()) {
                     System.out.println("Solution not found.\n" +
                             "Max number of nodes to search exceeded.\n" +
                             "May need to change or set number of max nodes to search if have not done so.\n");
+                    printStatistics(nodesVisited, nodesExpanded);
+                    SearchEvents.solveEnded(solveEvent, algorithm, SolveResult.Status.NODE_LIMIT, -1,
+                            nodesVisited, nodesExpanded);
                     return;
                 }
             }
 
+            timer.start();
             currentNode = priorityQueue.remove();
             currentState = currentNode.board;
+            timer.addOpenList();
         }
 
+        SearchEvents.solveEnded(solveEvent, algorithm, SolveResult.Status.SOLVED, currentNode.moves,
+                nodesVisited, nodesExpanded);
+
         printSolution();
         checkGoal();
+        printStatistics(nodesVisited, nodesExpanded);
+    }
+
+
+    /**
+     * method to solve the puzzle using weighted a-star search, ordering nodes by g + w * h
+     * the search is run by AStarSolver, which skips states already reached by a path as short,
+     * and its heuristics do not count the blank, so the solution found costs at most w times the optimal solution
+     * prints the solution to the puzzle if there is one
+     *
+     * @param heuristic the heuristic to be used
+     * @param weight the weight applied to the heuristic
+     */
+    public void weightedAStar(final int heuristic, final double weight) {
+
+        if (!PackedState.isValid(currentState.getState())) {
+            invalidState();
+            return;
+        }
+
+        SolveOptions options = new SolveOptions();
+        options.setHeuristic(heuristic);
+        options.setWeight(weight);
+        options.setMaxNodes(getMaxNodes());
+
+        long start = PackedState.pack(currentState.getState());
+        printSolveResult(start, runSolver(cached(new AStarSolver(), "A*", options), start, options));
+    }
+
+    /**
+     * method to solve the puzzle using anytime repairing a-star search (ARA*), see AraStarSolver
+     * a first solution is found quickly with a large weight, then the search is repaired with lower weights
+     * every improved solution is reported with its suboptimality bound, the best one is printed at the end
+     *
+     * @param heuristic the heuristic to be used
+     * @param weight the initial weight applied to the heuristic
+     */
+    public void araStar(final int heuristic, final double weight) {
+
+        if (!PackedState.isValid(currentState.getState())) {
+            invalidState();
+            return;
+        }
+
+        SolveOptions options = new SolveOptions();
+        options.setHeuristic(heuristic);
+        options.setWeight(weight);
+        options.setMaxNodes(getMaxNodes());
+
+        AraStarSolver solver = new AraStarSolver(new AraStarSolver.Listener() {
+            @Override
+            public void improved(int moves, double bound, int nodesGenerated) {
+                System.out.println("Solution found with " + moves + " moves after " + nodesGenerated +
+                        " nodes, at most " + String.format("%.2f", bound) + " times the optimal number of moves");
+            }
+        });
+
+        long start = PackedState.pack(currentState.getState());
+        SolveResult result = runSolver(solver, start, options);
+        if (result.isSolved())
+            System.out.println("");
+        printSolveResult(start, result);
     }
 
     /**
@@ -413,6 +968,14 @@ public class Main {
      *  @param k the max number of states to use in our search
      */
     public void solveBeam(Integer k) {
+        runSearch(() -> beamSearch(k));
+    }
+
+    /**
+     * runs the beam search of solveBeam within the budget of the solve
+     * @param k the max number of states to use in our search
+     */
+    private void beamSearch(int k) {
 
         System.out.println("\nAttempting to solve using beam search with " + k + " states\n");
 
@@ -430,35 +993,110 @@ public class Main {
             }
         });
 
-        currentNode = new Node(currentState, null, 0);
+        Object solveEvent =
+                SearchEvents.solveStarted("Beam", 2, 1.0, PackedState.pack(currentState.getState()));
+
+        int nodesVisited = 1;
+        int nodesExpanded = 0;
+        currentNode = new Node(currentState, null, 0, currentState.evaluationFunction());
         priorityQueue.add(currentNode);
 
+        Node closest = currentNode;
+
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
         while (currentNode.board.isGoal() == false) {
 
-            for (Board b : currentNode.board.neighbors()) {
+            if (budget.exhausted(nodesExpanded)) {
+                System.out.println("Solution not found.\n" + budget.stopReason() + "\n");
+                printPartialResult(closest);
+                printStatistics(nodesVisited, nodesExpanded);
+                SearchEvents.solveEnded(solveEvent, "Beam", budget.isCancelled() ? SolveResult.Status.CANCELLED
+                        : SolveResult.Status.TIME_LIMIT, -1, nodesVisited, nodesExpanded);
+                return;
+            }
+            timer.progress(nodesVisited, nodesExpanded, priorityQueue.size(), currentNode.board.evaluationFunction());
+            nodesExpanded++;
+
+            timer.start();
+            Iterable<Board> neighbors = currentNode.board.neighbors();
+            timer.addExpansion();
+
+            for (Board b : neighbors) {
 
                 if (!b.equals(currentNode.board)) {
-                    priorityQueue.add(new Node(b, currentNode, currentNode.moves + 1));
+                    timer.start();
+                    Node child = new Node(b, currentNode, currentNode.moves + 1, b.evaluationFunction());
+                    timer.addHeuristic();
+
+                    priorityQueue.add(child);
+                    timer.addOpenList();
+                    nodesVisited++;
+
+                    closest = closer(closest, child);
                 }
 
                 if (priorityQueue.size() > k) {
                     System.out.println("Solution not found.\n" +
                             "Beam search state space exceeded.\n" +
                             "May need to change state space to search in order to find a solution\n");
+                    printStatistics(nodesVisited, nodesExpanded);
+                    SearchEvents.solveEnded(solveEvent, "Beam", SolveResult.Status.EXHAUSTED, -1,
+                            nodesVisited, nodesExpanded);
                     return;
                 }
             }
 
+            timer.start();
             currentNode = priorityQueue.remove();
             currentState = currentNode.board;
+            timer.addOpenList();
         }
 
+        SearchEvents.solveEnded(solveEvent, "Beam", SolveResult.Status.SOLVED, currentNode.moves,
+                nodesVisited, nodesExpanded);
+
         printSolution();
         checkGoal();
+        printStatistics(nodesVisited, nodesExpanded);
+
+    }
 
+    /**
+     * picks the node closer to the goal by its estimate, searches keep the closest node they generate
+     * so they can report it with printPartialResult if they are stopped early
+     * @param closest the closest node so far
+     * @param child a node just generated
+     * @return child if its estimate is lower than that of closest, otherwise closest
+     */
+    private Node closer(Node closest, Node child) {
+        return child.estimate < closest.estimate ? child : closest;
+    }
+
+    /**
+     * prints the node closest to the goal found by a search that was stopped early
+     * @param closest the node with the lowest heuristic estimate generated by the search
+     */
+    public void printPartialResult(Node closest) {
+        System.out.println("Best partial result: " + closest.board.getState() + " reached in " + closest.moves +
+                " moves, estimated " + closest.estimate + " moves from the goal\n");
+    }
+
+    /**
+     * prints the statistics of the search that just finished or was stopped
+     * @param nodesVisited the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     */
+    public void printStatistics(int nodesVisited, int nodesExpanded) {
+        System.out.println("Nodes generated: " + nodesVisited +
+                "\nNodes expanded: " + nodesExpanded +
+                "\nOpen list size: " + priorityQueue.size() +
+                "\nElapsed time: " + budget.elapsedMillis() + " ms\n");
     }
 
     public void printSolution() {
+        Object outputEvent = SearchEvents.printingSolution();
+
         ArrayList<Node> solution = new ArrayList<Node>();
         while(currentNode.previous != null) {
             solution.add(currentNode);
@@ -467,6 +1105,16 @@ public class Main {
 
         Collections.reverse(solution);
 
+        lastSolution = new byte[solution.size()];
+        for (int i = 0; i < solution.size(); i++)
+            lastSolution[i] = (byte) PackedState.directionCode(solution.get(i).board.getMoveDirection());
+
+        if (solution.isEmpty()) {
+            System.out.println("Start state is the goal state, no moves needed\n");
+            SearchEvents.solutionPrinted(outputEvent, 0);
+            return;
+        }
+
         System.out.println("Start state is: " + solution.get(0).previous.board.getState() + "\n");
 
         for (int i = 0; i < solution.size(); i++) {
@@ -480,19 +1128,64 @@ public class Main {
             else
                 System.out.println("");
         }
+
+        SearchEvents.solutionPrinted(outputEvent, solution.size());
+    }
+
+    /**
+     * prints how long the program took to start up
+     * shown before the first prompt when the property puzzle.startupReport is true, or with the startupReport command
+     */
+    public void printStartupReport() {
+        // the management classes are only loaded here, after the times being reported have been taken
+        java.lang.management.RuntimeMXBean runtime = java.lang.management.ManagementFactory.getRuntimeMXBean();
+
+        String archive = "none";
+        for (String argument : runtime.getInputArguments())
+            if (argument.startsWith("-XX:SharedArchiveFile="))
+                archive = argument.substring("-XX:SharedArchiveFile=".length());
+
+        String firstPrompt = "not reached yet";
+        if (firstPromptNanos != 0)
+            firstPrompt = (firstPromptNanos - mainStartNanos) / 1000000L + " ms";
+
+        System.out.println("Startup report:" +
+                "\nJVM start to main: " + (mainStartMillis - runtime.getStartTime()) + " ms" +
+                "\nMain to first prompt: " + firstPrompt +
+                "\nClass data sharing archive: " + archive +
+                "\nDistance table: " + DistanceTable.describeShared() + "\n");
     }
 
     /**
      * processes the arguments fed to the program by the user or from a file
+     * a solve command gets its search budget before it is dispatched, so it can be cancelled from the start
      * @param args
      */
     public void processArguments(String[] args) {
 
+        boolean started = args.length > 1 && args[0].equalsIgnoreCase("solve") && startSearch();
+
+        try {
+            runCommand(args);
+        } finally {
+            if (started)
+                finishSearch();
+        }
+    }
+
+    /**
+     * runs one command fed to the program by the user or from a file
+     * @param args the command and its parameters
+     */
+    private void runCommand(String[] args) {
+
         if (args.length == 1) {
             if (args[0].equalsIgnoreCase("exit"))
                 System.exit(0);
             else if (args[0].equalsIgnoreCase("printState"))
                 printState();
+            else if (args[0].equalsIgnoreCase("startupReport"))
+                printStartupReport();
             else
                 invalidCommand();
         }
@@ -515,17 +1208,36 @@ public class Main {
                     wrongInputType();
                 }
             }
+            else if (args[0].equalsIgnoreCase("timeLimit")) {
+                try {
+                    timeLimit(Integer.parseInt(args[1]));
+                } catch (NumberFormatException n) {
+                    wrongInputType();
+                }
+            }
+            else if (args[0].equalsIgnoreCase("solve") && args[1].equalsIgnoreCase("table"))
+                solveTable();
             else
                 invalidCommand();
         }
 
         else if (args.length == 3) {
 
-            if (args[0].equalsIgnoreCase("solve"))
+            if (args[0].equalsIgnoreCase("randomizeState")) {
+                try {
+                    randomizeState(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+                } catch (NumberFormatException n) {
+                    wrongInputType();
+                }
+            }
+            else if (args[0].equalsIgnoreCase("solve"))
             {
                 if (args[1].equalsIgnoreCase("A-star")) {
                     solveAStar(args[2]);
                 }
+                else if (args[1].equalsIgnoreCase("EPEA")) {
+                    solvePartialExpansion(args[2]);
+                }
                 else if (args[1].equalsIgnoreCase("beam")) {
                     try {
                         solveBeam(Integer.parseInt(args[2]));
@@ -543,6 +1255,12 @@ public class Main {
         else if (args.length == 4) {
             if (args[0].equalsIgnoreCase("setState"))
                 setState(args[1], args[2], args[3]);
+            else if (args[0].equalsIgnoreCase("solve") && args[1].equalsIgnoreCase("weighted"))
+                solveWeightedAStar(args[2], args[3]);
+            else if (args[0].equalsIgnoreCase("solve") && args[1].equalsIgnoreCase("ARA"))
+                solveAraStar(args[2], args[3]);
+            else if (args[0].equalsIgnoreCase("solve") && args[1].equalsIgnoreCase("levelBeam"))
+                solveLevelBeam(args[2], args[3]);
             else
                 invalidCommand();
         }
@@ -556,6 +1274,12 @@ public class Main {
      * @param args
      */
     public void getUserInput(String[] args) {
+        if (firstPromptNanos == 0) {
+            firstPromptNanos = System.nanoTime();
+            if (Boolean.getBoolean("puzzle.startupReport"))
+                printStartupReport();
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         for (prompt(); scanner.hasNextLine(); prompt()) {
@@ -579,6 +1303,8 @@ public class Main {
      * @param args
      */
     public static void main(String[] args) {
+        mainStartNanos = System.nanoTime();
+        mainStartMillis = System.currentTimeMillis();
 
         Main main = new Main(args);
 
@@ -0,0 +1,332 @@
+/**
+ * Helpers for a compact representation of an 8 puzzle state packed into a long
+ * Each of the 9 cells takes 4 bits, cell i is stored in bits 4i to 4i + 3
+ * The blank is stored as 0 and the tiles as their numbers 1 to 8
+ *
+ * Moves are given as direction codes: 0 right, 1 left, 2 up, 3 down,
+ * naming the direction the blank tile moves in like Board.getMoveDirection
+ *
+ * @author calebcain
+ */
+public class PackedState {
+
+    /**
+     * the goal state b12 345 678 packed, each cell holds its own index
+     */
+    public static final long GOAL = pack("b12 345 678");
+
+    /**
+     * the number of permutations of 9 cells, the size of the rank space
+     */
+    public static final int STATES = 362880;
+
+    public static final int RIGHT = 0;
+    public static final int LEFT = 1;
+    public static final int UP = 2;
+    public static final int DOWN = 3;
+
+    /**
+     * the names of the move directions, indexed by direction code
+     */
+    public static final String[] DIRECTION_NAMES = {"Right", "Left", "Up", "Down"};
+
+    /**
+     * the offset of the cell the blank moves to, indexed by direction code
+     */
+    public static final int[] OFFSETS = {1, -1, -3, 3};
+
+    /**
+     * the direction that undoes each direction, indexed by direction code
+     */
+    public static final int[] REVERSE = {LEFT, RIGHT, DOWN, UP};
+
+    /**
+     * the legal directions the blank can move in, indexed by the cell of the blank
+     */
+    public static final int[][] MOVES = new int[9][];
+
+    /**
+     * the manhattan distance of each tile from its goal cell, indexed by cell then tile, 0 for the blank
+     */
+    public static final int[][] MANHATTAN = new int[9][9];
+
+    private static final int[] FACTORIALS = {1, 1, 2, 6, 24, 120, 720, 5040, 40320};
+
+    static {
+        for (int cell = 0; cell < 9; cell++)
+            for (int tile = 1; tile < 9; tile++)
+                MANHATTAN[cell][tile] = Math.abs(cell / 3 - tile / 3) + Math.abs(cell % 3 - tile % 3);
+
+        for (int blank = 0; blank < 9; blank++) {
+            int count = 0;
+            int[] moves = new int[4];
+            for (int direction = 0; direction < 4; direction++)
+                if (canMove(blank, direction))
+                    moves[count++] = direction;
+
+            MOVES[blank] = java.util.Arrays.copyOf(moves, count);
+        }
+    }
+
+    /**
+     * packs a state in the string representation used by Board
+     * @param state the state of the puzzle, such as "b12 345 678"
+     * @return the packed state
+     */
+    public static long pack(String state) {
+        long packed = 0;
+        int cell = 0;
+
+        for (int i = 0; i < state.length(); i++) {
+            char c = state.charAt(i);
+            if (c == ' ')
+                continue;
+
+            long tile = c == 'b' ? 0 : c - '0';
+            packed |= tile << (4 * cell);
+            cell++;
+        }
+
+        return packed;
+    }
+
+    /**
+     * checks if a state in the string representation used by Board can be packed,
+     * which is when it holds the blank and the tiles 1 to 8 exactly once each
+     * @param state the state of the puzzle, such as "b12 345 678"
+     * @return true if the state is a permutation of b and 1 to 8
+     */
+    public static boolean isValid(String state) {
+        int seen = 0;
+        int cells = 0;
+
+        for (int i = 0; i < state.length(); i++) {
+            char c = state.charAt(i);
+            if (c == ' ')
+                continue;
+            if (c != 'b' && (c < '1' || c > '8'))
+                return false;
+
+            int bit = 1 << (c == 'b' ? 0 : c - '0');
+            if ((seen & bit) != 0)
+                return false;
+            seen |= bit;
+            cells++;
+        }
+
+        return cells == 9;
+    }
+
+    /**
+     * checks if a packed state holds the blank and the tiles 1 to 8 exactly once each, in its 9 cells
+     * @param packed the packed state
+     * @return true if the state is a permutation of the blank and 1 to 8
+     */
+    public static boolean isValid(long packed) {
+        if (packed >>> 36 != 0)
+            return false;
+
+        int seen = 0;
+        for (int cell = 0; cell < 9; cell++)
+            seen |= 1 << tileAt(packed, cell);
+
+        return seen == 0x1FF;
+    }
+
+    /**
+     * converts a packed state to the string representation used by Board
+     * @param packed the packed state
+     * @return the state of the puzzle, such as "b12 345 678"
+     */
+    public static String toStateString(long packed) {
+        char[] chars = new char[11];
+        writeState(packed, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * writes the string representation of a packed state into a character array
+     * @param packed the packed state
+     * @param chars the array to write the 11 characters of the state to
+     * @param offset the index in the array to start writing at
+     */
+    public static void writeState(long packed, char[] chars, int offset) {
+        int cell = 0;
+        for (int i = 0; i < 11; i++) {
+            if (i == 3 || i == 7) {
+                chars[offset + i] = ' ';
+                continue;
+            }
+
+            int tile = tileAt(packed, cell++);
+            chars[offset + i] = tile == 0 ? 'b' : (char) ('0' + tile);
+        }
+    }
+
+    /**
+     * gets the tile in a cell of a packed state
+     * @param packed the packed state
+     * @param cell the index of the cell, 0 to 8
+     * @return the tile in the cell, 0 for the blank
+     */
+    public static int tileAt(long packed, int cell) {
+        return (int) (packed >>> (4 * cell)) & 0xF;
+    }
+
+    /**
+     * finds the cell the blank is in
+     * @param packed the packed state
+     * @return the index of the cell holding the blank
+     */
+    public static int blankIndex(long packed) {
+        for (int cell = 0; cell < 9; cell++)
+            if (tileAt(packed, cell) == 0)
+                return cell;
+
+        return -1;
+    }
+
+    /**
+     * checks if the blank can move in a direction from a cell
+     * @param blank the cell of the blank
+     * @param direction the direction code
+     * @return true if the move stays on the board
+     */
+    public static boolean canMove(int blank, int direction) {
+        switch (direction) {
+            case RIGHT: return blank % 3 < 2;
+            case LEFT: return blank % 3 > 0;
+            case UP: return blank > 2;
+            case DOWN: return blank < 6;
+            default: return false;
+        }
+    }
+
+    /**
+     * finds the direction code of a direction name, ignoring case
+     * @param name the name of the direction, such as "Right"
+     * @return the direction code, or -1 if the name is not a direction
+     */
+    public static int directionCode(String name) {
+        for (int direction = 0; direction < DIRECTION_NAMES.length; direction++)
+            if (DIRECTION_NAMES[direction].equalsIgnoreCase(name))
+                return direction;
+
+        return -1;
+    }
+
+    /**
+     * moves the blank, the move must be legal
+     * @param packed the packed state
+     * @param blank the cell of the blank
+     * @param direction the direction code to move the blank in
+     * @return the packed state after the move, the blank is then at blank + OFFSETS[direction]
+     */
+    public static long move(long packed, int blank, int direction) {
+        int target = blank + OFFSETS[direction];
+        long tile = (packed >>> (4 * target)) & 0xF;
+        return (packed & ~(0xFL << (4 * target))) | (tile << (4 * blank));
+    }
+
+    /**
+     * counts the tiles that are not in their goal cell, not counting the blank
+     * unlike Board.heuristicOne this never overestimates, so searches using it find shortest solutions
+     * @param packed the packed state
+     * @return the number of misplaced tiles
+     */
+    public static int misplacedTiles(long packed) {
+        int misplaced = 0;
+        for (int cell = 0; cell < 9; cell++) {
+            int tile = tileAt(packed, cell);
+            if (tile != 0 && tile != cell)
+                misplaced++;
+        }
+
+        return misplaced;
+    }
+
+    /**
+     * sums the distances of the tiles from their goal cells, not counting the blank
+     * unlike Board.manhattanDistance this never overestimates, so searches using it find shortest solutions
+     * @param packed the packed state
+     * @return the manhattan distance of the state
+     */
+    public static int manhattanDistance(long packed) {
+        int distance = 0;
+        for (int cell = 0; cell < 9; cell++)
+            distance += MANHATTAN[cell][tileAt(packed, cell)];
+
+        return distance;
+    }
+
+    /**
+     * checks if the goal can be reached from a state, which is when the tiles have an even number of inversions
+     * @param packed the packed state
+     * @return true if the state can be solved
+     */
+    public static boolean isSolvable(long packed) {
+        int inversions = 0;
+        for (int i = 0; i < 9; i++) {
+            int tile = tileAt(packed, i);
+            if (tile == 0)
+                continue;
+            for (int j = i + 1; j < 9; j++) {
+                int later = tileAt(packed, j);
+                if (later != 0 && later < tile)
+                    inversions++;
+            }
+        }
+
+        return inversions % 2 == 0;
+    }
+
+    /**
+     * computes the rank of a packed state among all permutations of the 9 cells
+     * @param packed the packed state
+     * @return a unique number from 0 to STATES - 1
+     */
+    public static int rank(long packed) {
+        int rank = 0;
+        int used = 0;
+
+        for (int cell = 0; cell < 9; cell++) {
+            int tile = tileAt(packed, cell);
+            int smaller = Integer.bitCount(used & ((1 << tile) - 1));
+            rank += (tile - smaller) * FACTORIALS[8 - cell];
+            used |= 1 << tile;
+        }
+
+        return rank;
+    }
+
+    /**
+     * converts a rank back to its packed state
+     * @param rank a number from 0 to STATES - 1
+     * @return the packed state with that rank
+     */
+    public static long unrank(int rank) {
+        long packed = 0;
+        int used = 0;
+
+        for (int cell = 0; cell < 9; cell++) {
+            int index = rank / FACTORIALS[8 - cell];
+            rank %= FACTORIALS[8 - cell];
+
+            // find the index-th tile not used yet
+            int tile = 0;
+            while (true) {
+                if ((used & (1 << tile)) == 0) {
+                    if (index == 0)
+                        break;
+                    index--;
+                }
+                tile++;
+            }
+
+            used |= 1 << tile;
+            packed |= (long) tile << (4 * cell);
+        }
+
+        return packed;
+    }
+}
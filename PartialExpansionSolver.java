@@ -0,0 +1,157 @@
+/**
+ * A thread safe enhanced partial expansion A* (EPEA*) solver over packed states
+ *
+ * A* puts every child of a node on the open list, though most are never removed.
+ * EPEA* only generates the children whose f equals the stored f of the node, then puts the
+ * node back on the open list with the next larger f of its children, if it has any left.
+ * The change in f of each move is read from a precomputed operator table, indexed by the
+ * cell of the blank, the direction and the tile moved, so children that are not wanted yet
+ * are never built. The open list stays much smaller, and the solutions are as short as A*'s
+ *
+ * Always searches with a weight of 1, the weight of the options is ignored
+ *
+ * @author calebcain
+ */
+public class PartialExpansionSolver extends AbstractSolver {
+
+    /**
+     * a change in f larger than any move can make
+     */
+    private static final int NO_DELTA = Integer.MAX_VALUE;
+
+    /**
+     * the change in f of each move, 1 plus the change in the heuristic,
+     * indexed by heuristic - 1, cell of the blank, direction code and the tile that moves into the blank
+     */
+    private static final byte[][][][] OPERATORS = new byte[2][9][4][9];
+
+    static {
+        for (int heuristic = SolveOptions.MISPLACED_TILES; heuristic <= SolveOptions.MANHATTAN_DISTANCE; heuristic++) {
+            for (int blank = 0; blank < 9; blank++) {
+                for (int direction : PackedState.MOVES[blank]) {
+                    int target = blank + PackedState.OFFSETS[direction];
+
+                    // the tile in the target cell slides into the cell of the blank
+                    for (int tile = 1; tile < 9; tile++)
+                        OPERATORS[heuristic - 1][blank][direction][tile] =
+                                (byte) (1 + tileCost(heuristic, blank, tile) - tileCost(heuristic, target, tile));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected String algorithm(SolveOptions options) {
+        return "EPEA*";
+    }
+
+    /**
+     * runs the search of a solve
+     * the h stored for a node in the context is its stored f minus g, which grows each time it is partially expanded
+     */
+    @Override
+    protected SolveResult search(long start, SolveOptions options, SearchBudget budget) {
+        SearchContext context = SearchContext.forThread();
+        context.reset(1.0);
+
+        int heuristic = options.getHeuristic();
+        byte[][][] operators = OPERATORS[heuristic - 1];
+
+        int root = context.addNode(start, 0, estimate(start, heuristic), -1, -1);
+        context.put(start, root);
+        context.push(root);
+
+        int nodesGenerated = 1;
+        int nodesExpanded = 0;
+
+        SearchEvents.PhaseTimer timer = SearchEvents.phaseTimer();
+
+        while (!context.isOpenEmpty()) {
+            timer.start();
+            int node = context.pop();
+            timer.addOpenList();
+
+            long state = context.states[node];
+
+            // skip nodes that were replaced by a cheaper path to the same state
+            if (context.find(state) != node)
+                continue;
+
+            if (state == PackedState.GOAL)
+                return new SolveResult(SolveResult.Status.SOLVED, context.path(node),
+                        nodesGenerated, nodesExpanded, budget.elapsedMillis(), context.peakOpenSize());
+
+            if (budget.exhausted(nodesExpanded))
+                return stopped(budget, context, nodesGenerated, nodesExpanded, context.peakOpenSize());
+            timer.progress(nodesGenerated, nodesExpanded, context.openSize(), context.weightedCost(node));
+            nodesExpanded++;
+
+            int blank = PackedState.blankIndex(state);
+            int cameFrom = node == root ? -1 : PackedState.REVERSE[context.move[node]];
+            int cost = context.g[node] + 1;
+
+            // the change in f the children generated this time must have, the operator lookups below
+            // stand in for the heuristic of each child so they count as heuristic time
+            timer.start();
+            int h = estimate(state, heuristic);
+            int wanted = context.h[node] - h;
+            int nextDelta = NO_DELTA;
+            timer.addHeuristic();
+
+            for (int direction : PackedState.MOVES[blank]) {
+                if (direction == cameFrom)
+                    continue;
+
+                timer.start();
+                int tile = PackedState.tileAt(state, blank + PackedState.OFFSETS[direction]);
+                int delta = operators[blank][direction][tile];
+                timer.addHeuristic();
+
+                if (delta != wanted) {
+                    if (delta > wanted && delta < nextDelta)
+                        nextDelta = delta;
+                    continue;
+                }
+
+                long child = PackedState.move(state, blank, direction);
+                int known = context.find(child);
+                timer.addExpansion();
+                if (known >= 0 && context.g[known] <= cost)
+                    continue;
+
+                int added = context.addNode(child, cost, h + delta - 1, node, direction);
+                context.put(child, added);
+                context.push(added);
+                timer.addOpenList();
+
+                if (++nodesGenerated > options.getMaxNodes())
+                    return new SolveResult(SolveResult.Status.NODE_LIMIT, null,
+                            nodesGenerated, nodesExpanded, budget.elapsedMillis(), context.peakOpenSize());
+            }
+
+            // put the node back with the f of the next children it has to offer
+            if (nextDelta != NO_DELTA) {
+                timer.start();
+                context.h[node] = h + nextDelta;
+                context.push(node);
+                timer.addOpenList();
+            }
+        }
+
+        return new SolveResult(SolveResult.Status.UNSOLVABLE, null, nodesGenerated, nodesExpanded,
+                budget.elapsedMillis(), context.peakOpenSize());
+    }
+
+    /**
+     * the part of the heuristic due to one tile in one cell
+     * @param heuristic SolveOptions.MISPLACED_TILES or SolveOptions.MANHATTAN_DISTANCE
+     * @param cell the cell the tile is in
+     * @param tile the tile, 1 to 8
+     * @return the tile's contribution to the heuristic
+     */
+    private static int tileCost(int heuristic, int cell, int tile) {
+        if (heuristic == SolveOptions.MISPLACED_TILES)
+            return tile != cell ? 1 : 0;
+        return PackedState.MANHATTAN[cell][tile];
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates reproducible scrambled 8 puzzle states for benchmarking
+ * Every instance has its own seed derived from the corpus seed and its index,
+ * so any instance can be regenerated without generating the ones before it
+ *
+ * Usage: java ScrambleGenerator file count depth seed [exact] [command...]
+ * exact picks states uniformly from those exactly depth moves from the goal, using DistanceTable,
+ * otherwise states are random walks of depth moves that never undo the previous move
+ * the optional command, such as "solve A-star h2", is written after every instance
+ *
+ * @author calebcain
+ */
+public class ScrambleGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * the states exactly n moves from the goal, indexed by n, built on first use
+     */
+    private static int[][] layers;
+
+    /**
+     * scrambles the goal state with a random walk that never undoes its previous move
+     * @param seed the seed of this instance
+     * @param depth the number of moves to make
+     * @return the packed scrambled state
+     */
+    public static long scramble(long seed, int depth) {
+        long packed = PackedState.GOAL;
+        int blank = 0;
+        int previous = -1;
+        long random = seed;
+
+        for (int i = 0; i < depth; i++) {
+            int[] moves = PackedState.MOVES[blank];
+            int reverse = previous < 0 ? -1 : PackedState.REVERSE[previous];
+
+            // pick among the legal moves, skipping the one that would undo the previous move
+            random += GOLDEN_GAMMA;
+            int count = reverse < 0 ? moves.length : moves.length - 1;
+            int pick = bounded(mix(random), count);
+
+            int direction = moves[0];
+            for (int m = 0; m < moves.length; m++) {
+                if (moves[m] == reverse)
+                    continue;
+                if (pick-- == 0) {
+                    direction = moves[m];
+                    break;
+                }
+            }
+
+            packed = PackedState.move(packed, blank, direction);
+            blank += PackedState.OFFSETS[direction];
+            previous = direction;
+        }
+
+        return packed;
+    }
+
+    /**
+     * picks a state uniformly from the states whose shortest solution is exactly depth moves
+     * the first call loads the shared distance table, which takes a moment if it has to be built
+     * @param seed the seed of this instance
+     * @param depth the number of moves to the goal, from 0 to DistanceTable.MAX_DEPTH
+     * @return the packed state
+     */
+    public static long sampleExact(long seed, int depth) {
+        int[] layer = layers()[depth];
+        return PackedState.unrank(layer[bounded(mix(seed + GOLDEN_GAMMA), layer.length)]);
+    }
+
+    /**
+     * derives the seed of one instance of a corpus
+     * @param corpusSeed the seed of the whole corpus
+     * @param index the index of the instance in the corpus
+     * @return the seed of the instance
+     */
+    public static long instanceSeed(long corpusSeed, long index) {
+        return mix(corpusSeed + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * writes a corpus of instances as setState commands, one per line
+     * @param filename the file to write to
+     * @param count the number of instances
+     * @param depth the scramble depth, or exact distance to the goal if exact is true
+     * @param corpusSeed the seed of the corpus
+     * @param exact true to sample uniformly from states exactly depth moves from the goal
+     * @param command a command written after every instance, or null for none
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCorpus(String filename, long count, int depth, long corpusSeed, boolean exact,
+                                   String command) throws IOException {
+        char[] line = "setState xxx xxx xxx\n".toCharArray();
+        String commandLine = command == null ? null : command + "\n";
+
+        Writer writer = new BufferedWriter(new FileWriter(filename), 1 << 16);
+        try {
+            for (long i = 0; i < count; i++) {
+                long seed = instanceSeed(corpusSeed, i);
+                long packed = exact ? sampleExact(seed, depth) : scramble(seed, depth);
+
+                PackedState.writeState(packed, line, 9);
+                writer.write(line);
+                if (commandLine != null)
+                    writer.write(commandLine);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * gets the states grouped by their distance from the goal, using the shared distance table on first use
+     * @return the ranks of the states exactly n moves from the goal, indexed by n
+     */
+    private static synchronized int[][] layers() {
+        if (layers != null)
+            return layers;
+
+        DistanceTable table = DistanceTable.shared();
+        int[] sizes = table.layerSizes();
+
+        int[][] built = new int[DistanceTable.MAX_DEPTH + 1][];
+        for (int d = 0; d <= DistanceTable.MAX_DEPTH; d++)
+            built[d] = new int[sizes[d]];
+
+        int[] filled = new int[DistanceTable.MAX_DEPTH + 1];
+        for (int rank = 0; rank < PackedState.STATES; rank++) {
+            int distance = table.distance(PackedState.unrank(rank));
+            if (distance >= 0)
+                built[distance][filled[distance]++] = rank;
+        }
+
+        layers = built;
+        return layers;
+    }
+
+    /**
+     * the SplitMix64 finalizer, turns a counter into a well mixed random number
+     * @param z the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * maps a random number to a number from 0 to bound - 1 without division
+     * @param random the random number
+     * @param bound the number of possible values
+     * @return a number from 0 to bound - 1
+     */
+    private static int bounded(long random, int bound) {
+        return (int) (((random >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * main method to write a corpus of scrambled instances to a file
+     * @param args file count depth seed [exact] [command...]
+     */
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.out.println("Usage: java ScrambleGenerator file count depth seed [exact] [command...]");
+            return;
+        }
+
+        try {
+            long count = Long.parseLong(args[1]);
+            int depth = Integer.parseInt(args[2]);
+            long seed = Long.parseLong(args[3]);
+
+            int next = 4;
+            boolean exact = args.length > next && args[next].equalsIgnoreCase("exact");
+            if (exact)
+                next++;
+
+            if (exact && (depth < 0 || depth > DistanceTable.MAX_DEPTH)) {
+                System.out.println("INVALID ARGUMENT: Exact depth must be between 0 and " + DistanceTable.MAX_DEPTH);
+                return;
+            }
+
+            String command = null;
+            if (args.length > next)
+                command = String.join(" ", Arrays.copyOfRange(args, next, args.length));
+
+            long start = System.nanoTime();
+            writeCorpus(args[0], count, depth, seed, exact, command);
+            long elapsed = (System.nanoTime() - start) / 1000000L;
+
+            System.out.println("Wrote " + count + " instances to '" + args[0] + "' in " + elapsed + " ms");
+        } catch (NumberFormatException n) {
+            System.out.println("INVALID ARGUMENT: count, depth and seed must be Integers");
+        } catch (IOException ex) {
+            System.out.println("Error writing file '" + args[0] + "'");
+        }
+    }
+}
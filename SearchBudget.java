@@ -0,0 +1,104 @@
+/**
+ * A wall clock budget for a single search, which can also be cancelled from another thread
+ * Searches poll the budget cheaply, only looking at the clock every CHECK_INTERVAL expansions
+ *
+ * @author calebcain
+ */
+public class SearchBudget {
+
+    /**
+     * the number of expansions between checks of the clock, must be a power of two
+     */
+    public static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * the time the search started at, from System.nanoTime
+     */
+    private final long startTime;
+
+    /**
+     * the time the search must stop at, from System.nanoTime, only used if hasDeadline is true
+     */
+    private final long deadline;
+
+    private final boolean hasDeadline;
+
+    private volatile boolean cancelled = false;
+
+    private boolean timedOut = false;
+
+    /**
+     * Starts a budget for a search
+     *
+     * @param timeLimit the number of milliseconds the search may run for, 0 if it may run until it finishes
+     */
+    public SearchBudget(long timeLimit) {
+        startTime = System.nanoTime();
+        hasDeadline = timeLimit > 0;
+        deadline = startTime + timeLimit * 1000000L;
+    }
+
+    /**
+     * cancels the search using this budget, safe to call from any thread
+     * the search stops the next time it checks the budget
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * checks if the search has run out of time or has been cancelled
+     * only looks at the clock and the cancel flag every CHECK_INTERVAL expansions
+     *
+     * @param expansions the number of nodes the search has expanded so far
+     * @return true if the search should stop, false if it may continue
+     */
+    public boolean exhausted(int expansions) {
+        if ((expansions & (CHECK_INTERVAL - 1)) != 0)
+            return false;
+
+        return exhausted();
+    }
+
+    /**
+     * checks if the search has run out of time or has been cancelled, looking at the clock right away
+     * for searches that also do work between expansions, such as repairing their open list
+     *
+     * @return true if the search should stop, false if it may continue
+     */
+    public boolean exhausted() {
+        if (cancelled)
+            return true;
+
+        if (hasDeadline && System.nanoTime() - deadline >= 0)
+            timedOut = true;
+
+        return timedOut;
+    }
+
+    /**
+     * checks if the search using this budget has been cancelled
+     * @return true if cancel has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * gets the number of milliseconds since the search started
+     * @return the elapsed time in milliseconds
+     */
+    public long elapsedMillis() {
+        return (System.nanoTime() - startTime) / 1000000L;
+    }
+
+    /**
+     * gets the reason the search was stopped early
+     * @return a message saying whether the search was cancelled or ran out of time
+     */
+    public String stopReason() {
+        if (cancelled)
+            return "Search cancelled.";
+        return "Time limit exceeded.";
+    }
+}
@@ -0,0 +1,380 @@
+import java.util.Arrays;
+
+/**
+ * The working memory of one search over packed states: a node arena, an open list and a table of generated states
+ * A context is reused from solve to solve on the same thread, reset rather than reallocated,
+ * so once its arrays have grown to fit the searches being run a solve allocates almost nothing
+ * Arrays grown past MAX_KEPT_NODES are dropped by the next reset, so one very large solve
+ * does not hold its memory for the rest of the life of the thread
+ * Each thread has one context, shared by every solver that runs on it, see forThread
+ *
+ * Nodes are indices into the arena arrays. The open list is a binary heap of node indices ordered
+ * by g + weight * h, and the table maps each generated state to the node with its lowest g
+ * The context also keeps the node with the lowest estimate, which a search that is stopped early reports
+ *
+ * @author calebcain
+ */
+public class SearchContext {
+
+    private static final int INITIAL_NODES = 1 << 12;
+
+    /**
+     * the most nodes a context keeps room for between solves, about 16 MB of arrays,
+     * enough for the default of 100000 nodes; larger arrays are reallocated at INITIAL_NODES by reset
+     */
+    private static final int MAX_KEPT_NODES = 1 << 18;
+
+    /**
+     * the estimate of a node that has not been scored yet, see setEstimate
+     */
+    public static final int UNSCORED = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<SearchContext> CONTEXTS = new ThreadLocal<SearchContext>() {
+        @Override
+        protected SearchContext initialValue() {
+            return new SearchContext();
+        }
+    };
+
+    // node arena
+    long[] states = new long[INITIAL_NODES];
+    int[] g = new int[INITIAL_NODES];
+    int[] h = new int[INITIAL_NODES];
+    int[] parent = new int[INITIAL_NODES];
+    byte[] move = new byte[INITIAL_NODES];
+
+    // a value per node for the bookkeeping of a search, 0 when the node is added, ARA* stores the pass that expanded it
+    int[] mark = new int[INITIAL_NODES];
+    int nodeCount;
+
+    // the node with the lowest estimate it was added or scored with, later changes to h do not move it
+    private int closest;
+    private int closestEstimate;
+
+    // open list
+    private int[] heap = new int[INITIAL_NODES];
+    private int heapSize;
+    private int peakHeapSize;
+    private double weight;
+
+    // a level of states to be scored together, used by beam search
+    long[] batchStates = new long[INITIAL_NODES];
+    int[] batchNodes = new int[INITIAL_NODES];
+    int[] batchScores = new int[INITIAL_NODES];
+
+    // generated states, open addressing with a stamp per slot so reset does not have to clear the table
+    private long[] keys = new long[2 * INITIAL_NODES];
+    private int[] values = new int[2 * INITIAL_NODES];
+    private int[] stamps = new int[2 * INITIAL_NODES];
+    private int generation = 1;
+    private int tableCount;
+
+    /**
+     * gets the context of the calling thread, shared by all the solvers so a thread keeps only one
+     * a solver must be done with the context before another solve on the same thread starts
+     * @return the context of this thread
+     */
+    public static SearchContext forThread() {
+        return CONTEXTS.get();
+    }
+
+    /**
+     * empties the context for a new search, shrinking any arrays the last search grew past MAX_KEPT_NODES
+     * @param newWeight the weight applied to the heuristic when ordering the open list
+     */
+    public void reset(double newWeight) {
+        if (states.length > MAX_KEPT_NODES || heap.length > MAX_KEPT_NODES ||
+                batchStates.length > MAX_KEPT_NODES || keys.length > 2 * MAX_KEPT_NODES)
+            shrink();
+
+        nodeCount = 0;
+        closest = -1;
+        closestEstimate = UNSCORED;
+        heapSize = 0;
+        peakHeapSize = 0;
+        tableCount = 0;
+        weight = newWeight;
+
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * adds a node to the arena
+     * @param state the packed state of the node
+     * @param cost the number of moves from the start to the node
+     * @param estimate the heuristic estimate of the node, or UNSCORED if it is set later with setEstimate
+     * @param previous the node this one was generated from, -1 for the start
+     * @param direction the direction code of the move from the previous node, -1 for the start
+     * @return the index of the new node
+     */
+    public int addNode(long state, int cost, int estimate, int previous, int direction) {
+        if (nodeCount == states.length) {
+            int capacity = 2 * states.length;
+            states = Arrays.copyOf(states, capacity);
+            g = Arrays.copyOf(g, capacity);
+            h = Arrays.copyOf(h, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            move = Arrays.copyOf(move, capacity);
+            mark = Arrays.copyOf(mark, capacity);
+        }
+
+        int node = nodeCount++;
+        states[node] = state;
+        g[node] = cost;
+        h[node] = estimate;
+        parent[node] = previous;
+        move[node] = (byte) direction;
+        mark[node] = 0;
+
+        if (estimate < closestEstimate) {
+            closest = node;
+            closestEstimate = estimate;
+        }
+        return node;
+    }
+
+    /**
+     * sets the heuristic estimate of a node that was added UNSCORED
+     * @param node the index of the node
+     * @param estimate the heuristic estimate of the node
+     */
+    public void setEstimate(int node, int estimate) {
+        h[node] = estimate;
+        if (estimate < closestEstimate) {
+            closest = node;
+            closestEstimate = estimate;
+        }
+    }
+
+    /**
+     * gets the node closest to the goal, the one with the lowest estimate it was added or scored with
+     * @return the index of the node, the first node added if no node has been scored
+     */
+    public int closest() {
+        return closest < 0 ? 0 : closest;
+    }
+
+    /**
+     * makes sure the batch arrays can hold a number of states
+     * @param size the number of states the next batch needs
+     */
+    public void ensureBatchCapacity(int size) {
+        if (size <= batchStates.length)
+            return;
+
+        int capacity = Math.max(size, 2 * batchStates.length);
+        batchStates = new long[capacity];
+        batchNodes = new int[capacity];
+        batchScores = new int[capacity];
+    }
+
+    /**
+     * finds the node recorded for a state
+     * @param state the packed state
+     * @return the index of the node, or -1 if the state has not been generated
+     */
+    public int find(long state) {
+        int mask = keys.length - 1;
+        for (int slot = hash(state) & mask; stamps[slot] == generation; slot = (slot + 1) & mask)
+            if (keys[slot] == state)
+                return values[slot];
+
+        return -1;
+    }
+
+    /**
+     * records the node for a state, replacing any node recorded for it before
+     * @param state the packed state
+     * @param node the index of the node
+     */
+    public void put(long state, int node) {
+        if (2 * (tableCount + 1) > keys.length)
+            growTable();
+
+        int mask = keys.length - 1;
+        int slot = hash(state) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == state) {
+                values[slot] = node;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        stamps[slot] = generation;
+        keys[slot] = state;
+        values[slot] = node;
+        tableCount++;
+    }
+
+    /**
+     * checks if the open list is empty
+     * @return true if there are no nodes left to expand
+     */
+    public boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * gets the number of nodes on the open list
+     * @return the size of the open list
+     */
+    public int openSize() {
+        return heapSize;
+    }
+
+    /**
+     * gets the largest number of nodes the open list has held since the last reset
+     * @return the peak size of the open list
+     */
+    public int peakOpenSize() {
+        return peakHeapSize;
+    }
+
+    /**
+     * adds a node to the open list
+     * @param node the index of the node
+     */
+    public void push(int node) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, 2 * heap.length);
+
+        int index = heapSize++;
+        if (heapSize > peakHeapSize)
+            peakHeapSize = heapSize;
+
+        while (index > 0) {
+            int up = (index - 1) >>> 1;
+            if (!before(node, heap[up]))
+                break;
+            heap[index] = heap[up];
+            index = up;
+        }
+        heap[index] = node;
+    }
+
+    /**
+     * gets the node with the lowest g + weight * h without removing it from the open list
+     * @return the index of the node, the open list must not be empty
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * empties the open list and changes the weight it is ordered by, the nodes and the table are kept
+     * @param newWeight the weight applied to the heuristic when ordering the open list
+     */
+    public void clearOpen(double newWeight) {
+        heapSize = 0;
+        weight = newWeight;
+    }
+
+    /**
+     * removes the node with the lowest g + weight * h from the open list
+     * @return the index of the node
+     */
+    public int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child]))
+                child++;
+            if (!before(heap[child], last))
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        if (heapSize > 0)
+            heap[index] = last;
+
+        return top;
+    }
+
+    /**
+     * gets the weighted cost a node is ordered by on the open list
+     * @param node the index of the node
+     * @return g + weight * h of the node
+     */
+    public double weightedCost(int node) {
+        return g[node] + weight * h[node];
+    }
+
+    /**
+     * follows the parents of a node back to the start
+     * @param node the index of the node
+     * @return the direction codes of the moves from the start to the node
+     */
+    public byte[] path(int node) {
+        byte[] moves = new byte[g[node]];
+        for (int i = moves.length - 1; i >= 0; i--) {
+            moves[i] = move[node];
+            node = parent[node];
+        }
+
+        return moves;
+    }
+
+    /**
+     * orders the open list by weighted cost, breaking ties toward the deeper node
+     */
+    private boolean before(int a, int b) {
+        double fa = weightedCost(a);
+        double fb = weightedCost(b);
+        if (fa != fb)
+            return fa < fb;
+        return g[a] > g[b];
+    }
+
+    /**
+     * replaces every array with one of its initial size, the table is left empty since its stamps are all 0
+     */
+    private void shrink() {
+        states = new long[INITIAL_NODES];
+        g = new int[INITIAL_NODES];
+        h = new int[INITIAL_NODES];
+        parent = new int[INITIAL_NODES];
+        move = new byte[INITIAL_NODES];
+        mark = new int[INITIAL_NODES];
+        heap = new int[INITIAL_NODES];
+
+        batchStates = new long[INITIAL_NODES];
+        batchNodes = new int[INITIAL_NODES];
+        batchScores = new int[INITIAL_NODES];
+
+        keys = new long[2 * INITIAL_NODES];
+        values = new int[2 * INITIAL_NODES];
+        stamps = new int[2 * INITIAL_NODES];
+    }
+
+    private void growTable() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+
+        keys = new long[2 * oldKeys.length];
+        values = new int[2 * oldKeys.length];
+        stamps = new int[2 * oldKeys.length];
+        generation = 1;
+        tableCount = 0;
+
+        for (int slot = 0; slot < oldKeys.length; slot++)
+            if (oldStamps[slot] == oldGeneration)
+                put(oldKeys[slot], oldValues[slot]);
+    }
+
+    private static int hash(long state) {
+        long mixed = state * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32);
+    }
+}
@@ -0,0 +1,369 @@
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events for profiling searches
+ * Every event is disabled by default, and until a recording starts the event classes are not even loaded,
+ * so a search without a recording pays for no more than a check of FlightRecorder.isInitialized
+ * Enable them with the settings in puzzle.jfc, for example
+ *     java -XX:StartFlightRecording:settings=puzzle.jfc,filename=search.jfr Main
+ *
+ * @author calebcain
+ */
+public class SearchEvents {
+
+    @Name("puzzle.SolveStart")
+    @Label("Solve Start")
+    @Category("8 Puzzle")
+    @Description("A search for a solution started")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SolveStartEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Heuristic")
+        int heuristic;
+
+        @Label("Weight")
+        double weight;
+
+        @Label("Start State")
+        String state;
+    }
+
+    @Name("puzzle.SolveEnd")
+    @Label("Solve End")
+    @Category("8 Puzzle")
+    @Description("A search for a solution ended, the duration is the whole search")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SolveEndEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Status")
+        String status;
+
+        @Label("Solution Moves")
+        int cost;
+
+        @Label("Nodes Generated")
+        int nodesGenerated;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+    }
+
+    @Name("puzzle.SearchProgress")
+    @Label("Search Progress")
+    @Category("8 Puzzle")
+    @Description("The state of a search, recorded every SearchBudget.CHECK_INTERVAL expansions")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SearchProgressEvent extends Event {
+        @Label("Nodes Generated")
+        int nodesGenerated;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+
+        @Label("Open List Size")
+        int openSize;
+
+        @Label("F Bound")
+        @Description("The f value of the node being expanded")
+        double fBound;
+
+        @Label("Expansion Time")
+        @Description("Time spent generating children so far, not counting heuristics")
+        @Timespan(Timespan.NANOSECONDS)
+        long expansionTime;
+
+        @Label("Heuristic Time")
+        @Description("Time spent computing heuristics so far")
+        @Timespan(Timespan.NANOSECONDS)
+        long heuristicTime;
+
+        @Label("Open List Time")
+        @Description("Time spent adding to and removing from the open list so far")
+        @Timespan(Timespan.NANOSECONDS)
+        long openListTime;
+    }
+
+    @Name("puzzle.SolutionOutput")
+    @Label("Solution Output")
+    @Category("8 Puzzle")
+    @Description("A solution was printed, the duration is the time spent printing")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SolutionOutputEvent extends Event {
+        @Label("Solution Moves")
+        int cost;
+    }
+
+    @Name("puzzle.CacheHit")
+    @Label("Cache Hit")
+    @Category("8 Puzzle")
+    @Description("A solution was found in a SolutionCache")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class CacheHitEvent extends Event {
+        @Label("State")
+        String state;
+
+        @Label("Solution Moves")
+        int cost;
+
+        @Label("Reflected")
+        @Description("The cached solution was stored for the reflection of the state")
+        boolean reflected;
+    }
+
+    /**
+     * checks if a flight recording may be running, only then are the event classes loaded
+     * @return true once the flight recorder has been started
+     */
+    private static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * records that a search started
+     * @param algorithm the name of the search algorithm
+     * @param heuristic the heuristic used
+     * @param weight the weight applied to the heuristic
+     * @param packed the packed start state
+     * @return the end event of the search, already begun, to be passed to solveEnded,
+     * or null when nothing is recording
+     */
+    public static Object solveStarted(String algorithm, int heuristic, double weight, long packed) {
+        if (!recording())
+            return null;
+
+        return Recorder.solveStarted(algorithm, heuristic, weight, packed);
+    }
+
+    /**
+     * records that a search ended
+     * @param end the event returned by solveStarted
+     * @param algorithm the name of the search algorithm
+     * @param status how the search ended
+     * @param cost the number of moves of the solution found, -1 if none was found
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     */
+    public static void solveEnded(Object end, String algorithm, SolveResult.Status status, int cost,
+                                  int nodesGenerated, int nodesExpanded) {
+        if (end == null)
+            return;
+
+        Recorder.solveEnded(end, algorithm, status, cost, nodesGenerated, nodesExpanded);
+    }
+
+    /**
+     * checks if progress events are being recorded, searches only time their phases when they are
+     * @return true if SearchProgressEvent is enabled
+     */
+    private static boolean profiling() {
+        return recording() && Recorder.profiling();
+    }
+
+    /**
+     * creates the timer a search measures its phases with
+     * @return a timer that measures while progress events are being recorded and otherwise does nothing
+     */
+    public static PhaseTimer phaseTimer() {
+        return new PhaseTimer(profiling());
+    }
+
+    /**
+     * Adds up the time a search spends expanding nodes, computing heuristics and on its open list
+     * start marks the beginning of a phase, and each add method charges the time since the last mark
+     * to its phase and marks the beginning of the next, so a search makes one call per phase
+     * Nothing is measured unless progress events were being recorded when the timer was created
+     */
+    public static class PhaseTimer {
+
+        private final boolean profiling;
+        private long mark;
+        private long expansionTime;
+        private long heuristicTime;
+        private long openListTime;
+
+        private PhaseTimer(boolean profiling) {
+            this.profiling = profiling;
+        }
+
+        /**
+         * marks the beginning of a phase
+         */
+        public void start() {
+            if (profiling)
+                mark = System.nanoTime();
+        }
+
+        /**
+         * charges the time since the last mark to generating children
+         */
+        public void addExpansion() {
+            if (profiling)
+                expansionTime += lap();
+        }
+
+        /**
+         * charges the time since the last mark to computing heuristics
+         */
+        public void addHeuristic() {
+            if (profiling)
+                heuristicTime += lap();
+        }
+
+        /**
+         * charges the time since the last mark to adding to and removing from the open list
+         */
+        public void addOpenList() {
+            if (profiling)
+                openListTime += lap();
+        }
+
+        private long lap() {
+            long now = System.nanoTime();
+            long elapsed = now - mark;
+            mark = now;
+            return elapsed;
+        }
+
+        /**
+         * records the progress of the search, every SearchBudget.CHECK_INTERVAL expansions
+         * @param nodesGenerated the number of nodes generated so far
+         * @param nodesExpanded the number of nodes expanded so far
+         * @param openSize the number of nodes on the open list
+         * @param fBound the f value of the node being expanded
+         */
+        public void progress(int nodesGenerated, int nodesExpanded, int openSize, double fBound) {
+            if (profiling && (nodesExpanded & (SearchBudget.CHECK_INTERVAL - 1)) == 0)
+                Recorder.progress(nodesGenerated, nodesExpanded, openSize, fBound,
+                        expansionTime, heuristicTime, openListTime);
+        }
+    }
+
+    /**
+     * starts timing the printing of a solution
+     * @return the event, already begun, to be passed to solutionPrinted, or null when nothing is recording
+     */
+    public static Object printingSolution() {
+        if (!recording())
+            return null;
+
+        return Recorder.printingSolution();
+    }
+
+    /**
+     * records that a solution was printed
+     * @param event the event returned by printingSolution
+     * @param cost the number of moves of the solution
+     */
+    public static void solutionPrinted(Object event, int cost) {
+        if (event == null)
+            return;
+
+        Recorder.solutionPrinted(event, cost);
+    }
+
+    /**
+     * records a solution found in a cache
+     * @param packed the packed state that was looked up
+     * @param cost the number of moves of the cached solution
+     * @param reflected true if the solution was stored for the reflection of the state
+     */
+    public static void cacheHit(long packed, int cost, boolean reflected) {
+        if (!recording())
+            return;
+
+        Recorder.cacheHit(packed, cost, reflected);
+    }
+
+    /**
+     * creates and commits the events, only loaded once the flight recorder has started
+     * so the event classes and their registration stay out of searches that are not recorded
+     */
+    private static class Recorder {
+
+        static SolveEndEvent solveStarted(String algorithm, int heuristic, double weight, long packed) {
+            SolveStartEvent start = new SolveStartEvent();
+            if (start.isEnabled()) {
+                start.algorithm = algorithm;
+                start.heuristic = heuristic;
+                start.weight = weight;
+                start.state = PackedState.toStateString(packed);
+                start.commit();
+            }
+
+            SolveEndEvent end = new SolveEndEvent();
+            end.begin();
+            return end;
+        }
+
+        static void solveEnded(Object event, String algorithm, SolveResult.Status status, int cost,
+                               int nodesGenerated, int nodesExpanded) {
+            SolveEndEvent end = (SolveEndEvent) event;
+            if (!end.isEnabled())
+                return;
+
+            end.end();
+            end.algorithm = algorithm;
+            end.status = status.name();
+            end.cost = cost;
+            end.nodesGenerated = nodesGenerated;
+            end.nodesExpanded = nodesExpanded;
+            end.commit();
+        }
+
+        static boolean profiling() {
+            return EventType.getEventType(SearchProgressEvent.class).isEnabled();
+        }
+
+        static void progress(int nodesGenerated, int nodesExpanded, int openSize, double fBound,
+                             long expansionTime, long heuristicTime, long openListTime) {
+            SearchProgressEvent event = new SearchProgressEvent();
+            if (!event.isEnabled())
+                return;
+
+            event.nodesGenerated = nodesGenerated;
+            event.nodesExpanded = nodesExpanded;
+            event.openSize = openSize;
+            event.fBound = fBound;
+            event.expansionTime = expansionTime;
+            event.heuristicTime = heuristicTime;
+            event.openListTime = openListTime;
+            event.commit();
+        }
+
+        static SolutionOutputEvent printingSolution() {
+            SolutionOutputEvent event = new SolutionOutputEvent();
+            event.begin();
+            return event;
+        }
+
+        static void solutionPrinted(Object printing, int cost) {
+            SolutionOutputEvent event = (SolutionOutputEvent) printing;
+            if (!event.isEnabled())
+                return;
+
+            event.end();
+            event.cost = cost;
+            event.commit();
+        }
+
+        static void cacheHit(long packed, int cost, boolean reflected) {
+            CacheHitEvent event = new CacheHitEvent();
+            if (!event.isEnabled())
+                return;
+
+            event.state = PackedState.toStateString(packed);
+            event.cost = cost;
+            event.reflected = reflected;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.*;
+
+/**
+ * A bounded, thread safe cache of solutions, dropping the least recently used when full
+ * Solutions are stored under the canonical form of their start state, see Symmetry,
+ * so a state and its reflection share one entry
+ *
+ * @author calebcain
+ */
+public class SolutionCache {
+
+    private final Map<Long, byte[]> solutions;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates an empty cache
+     * @param capacity the max number of solutions to keep
+     */
+    public SolutionCache(final int capacity) {
+        solutions = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * looks up the solution of a state
+     * @param packed the packed start state
+     * @return the direction codes of the solution from that state, or null if it is not cached
+     */
+    public synchronized byte[] get(long packed) {
+        long key = Symmetry.canonical(packed);
+        byte[] moves = solutions.get(key);
+
+        if (moves == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        SearchEvents.cacheHit(packed, moves.length, key != packed);
+        return key == packed ? moves.clone() : Symmetry.reflectMoves(moves);
+    }
+
+    /**
+     * stores the solution of a state
+     * @param packed the packed start state
+     * @param moves the direction codes of the solution from that state
+     */
+    public synchronized void put(long packed, byte[] moves) {
+        long key = Symmetry.canonical(packed);
+        solutions.put(key, key == packed ? moves.clone() : Symmetry.reflectMoves(moves));
+    }
+
+    /**
+     * gets the number of solutions in the cache
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    /**
+     * gets the number of lookups that found a solution
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * gets the number of lookups that did not find a solution
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * The settings of a single solve of the 8 puzzle
+ *
+ * @author calebcain
+ */
+public class SolveOptions {
+
+    /**
+     * counts the tiles not in their goal cells
+     */
+    public static final int MISPLACED_TILES = 1;
+
+    /**
+     * sums the distances of the tiles from their goal cells
+     */
+    public static final int MANHATTAN_DISTANCE = 2;
+
+    /**
+     * the largest weight a search accepts, larger weights order nodes by the heuristic alone anyway
+     */
+    public static final double MAX_WEIGHT = 100;
+
+    private int heuristic = MANHATTAN_DISTANCE;
+    private double weight = 1.0;
+    private int maxNodes = 100000;
+    private long timeLimit = 0;
+    private int beamWidth = 100;
+
+    /**
+     * gets the heuristic the search uses
+     * @return MISPLACED_TILES or MANHATTAN_DISTANCE
+     */
+    public int getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * sets the heuristic the search uses
+     * @param newHeuristic MISPLACED_TILES or MANHATTAN_DISTANCE
+     */
+    public void setHeuristic(int newHeuristic) {
+        if (newHeuristic != MISPLACED_TILES && newHeuristic != MANHATTAN_DISTANCE)
+            throw new IllegalArgumentException("Unknown heuristic " + newHeuristic);
+        heuristic = newHeuristic;
+    }
+
+    /**
+     * gets the weight applied to the heuristic, the search orders nodes by g + w * h
+     * @return the weight, 1 for plain A*
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * sets the weight applied to the heuristic
+     * @param newWeight the weight, from 1 to MAX_WEIGHT
+     */
+    public void setWeight(double newWeight) {
+        if (!(newWeight >= 1 && newWeight <= MAX_WEIGHT))
+            throw new IllegalArgumentException("Weight must be between 1 and " + (int) MAX_WEIGHT);
+        weight = newWeight;
+    }
+
+    /**
+     * gets the max number of nodes the search may generate
+     * @return the max number of nodes
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * sets the max number of nodes the search may generate
+     * @param newMaxNodes the max number of nodes
+     */
+    public void setMaxNodes(int newMaxNodes) {
+        maxNodes = newMaxNodes;
+    }
+
+    /**
+     * gets the number of milliseconds the search may run for
+     * @return the time limit, 0 if there is none
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * sets the number of milliseconds the search may run for
+     * @param newTimeLimit the time limit, 0 for none
+     */
+    public void setTimeLimit(long newTimeLimit) {
+        timeLimit = newTimeLimit;
+    }
+
+    /**
+     * gets the number of states kept at each level of a beam search
+     * @return the width of the beam
+     */
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * sets the number of states kept at each level of a beam search
+     * @param newBeamWidth the width of the beam, at least 1
+     */
+    public void setBeamWidth(int newBeamWidth) {
+        if (newBeamWidth < 1)
+            throw new IllegalArgumentException("Beam width must be at least 1");
+        beamWidth = newBeamWidth;
+    }
+}
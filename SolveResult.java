@@ -0,0 +1,243 @@
+/**
+ * The outcome of a solve of the 8 puzzle: the solution if one was found and the statistics of the search
+ *
+ * @author calebcain
+ */
+public class SolveResult {
+
+    /**
+     * how a solve ended
+     */
+    public enum Status {
+        SOLVED, UNSOLVABLE, NODE_LIMIT, TIME_LIMIT, CANCELLED,
+
+        /**
+         * an incomplete search, such as beam search, ran out of states without finding the goal
+         */
+        EXHAUSTED
+    }
+
+    private final Status status;
+    private final byte[] moves;
+    private final int nodesGenerated;
+    private final int nodesExpanded;
+    private final long elapsedMillis;
+    private final int peakOpenSize;
+    private final double bound;
+    private final long closestState;
+    private final byte[] closestMoves;
+
+    /**
+     * Records the outcome of a solve
+     *
+     * @param status how the solve ended
+     * @param moves the direction codes of the solution, see PackedState, or null if none was found
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     * @param elapsedMillis how long the search ran for in milliseconds
+     */
+    public SolveResult(Status status, byte[] moves, int nodesGenerated, int nodesExpanded, long elapsedMillis) {
+        this(status, moves, nodesGenerated, nodesExpanded, elapsedMillis, 0);
+    }
+
+    /**
+     * Records the outcome of a solve that kept an open list
+     *
+     * @param status how the solve ended
+     * @param moves the direction codes of the solution, see PackedState, or null if none was found
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     * @param elapsedMillis how long the search ran for in milliseconds
+     * @param peakOpenSize the largest number of nodes on the open list at once
+     */
+    public SolveResult(Status status, byte[] moves, int nodesGenerated, int nodesExpanded, long elapsedMillis,
+                       int peakOpenSize) {
+        this.status = status;
+        this.moves = moves;
+        this.nodesGenerated = nodesGenerated;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedMillis = elapsedMillis;
+        this.peakOpenSize = peakOpenSize;
+        this.bound = 0;
+        this.closestState = 0;
+        this.closestMoves = null;
+    }
+
+    /**
+     * Records a solution that is known to be at most a number of times longer than the shortest solution
+     *
+     * @param moves the direction codes of the solution, see PackedState
+     * @param bound the most times the number of moves of the shortest solution that the solution can have, at least 1
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     * @param elapsedMillis how long the search ran for in milliseconds
+     * @param peakOpenSize the largest number of nodes on the open list at once
+     */
+    public SolveResult(byte[] moves, double bound, int nodesGenerated, int nodesExpanded, long elapsedMillis,
+                       int peakOpenSize) {
+        this.status = Status.SOLVED;
+        this.moves = moves;
+        this.nodesGenerated = nodesGenerated;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedMillis = elapsedMillis;
+        this.peakOpenSize = peakOpenSize;
+        this.bound = bound;
+        this.closestState = 0;
+        this.closestMoves = null;
+    }
+
+    /**
+     * Records the outcome of a solve that was stopped before it found a solution, with its best partial result
+     *
+     * @param status how the solve ended, TIME_LIMIT or CANCELLED
+     * @param closestState the packed state with the lowest heuristic estimate the search generated
+     * @param closestMoves the direction codes of the moves from the start to closestState
+     * @param nodesGenerated the number of nodes the search generated
+     * @param nodesExpanded the number of nodes the search expanded
+     * @param elapsedMillis how long the search ran for in milliseconds
+     * @param peakOpenSize the largest number of nodes on the open list at once, 0 if the solve kept none
+     */
+    public SolveResult(Status status, long closestState, byte[] closestMoves, int nodesGenerated, int nodesExpanded,
+                       long elapsedMillis, int peakOpenSize) {
+        this.status = status;
+        this.moves = null;
+        this.nodesGenerated = nodesGenerated;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedMillis = elapsedMillis;
+        this.peakOpenSize = peakOpenSize;
+        this.bound = 0;
+        this.closestState = closestState;
+        this.closestMoves = closestMoves;
+    }
+
+    /**
+     * gets how the solve ended
+     * @return the status of the solve
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * checks if a solution was found
+     * @return true if the status is SOLVED
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * gets the moves of the solution
+     * @return the direction codes of the moves, see PackedState, or null if no solution was found
+     */
+    public byte[] getMoves() {
+        return moves;
+    }
+
+    /**
+     * gets the number of moves of the solution
+     * @return the number of moves, or -1 if no solution was found
+     */
+    public int getCost() {
+        return moves == null ? -1 : moves.length;
+    }
+
+    /**
+     * gets the number of nodes the search generated
+     * @return the number of nodes generated
+     */
+    public int getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    /**
+     * gets the number of nodes the search expanded
+     * @return the number of nodes expanded
+     */
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * gets how long the search ran for
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * gets the largest number of nodes the open list held at once
+     * @return the peak size of the open list, 0 if the solve kept none
+     */
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    /**
+     * gets how far the solution can be from the shortest one, given by anytime searches such as ARA*
+     * @return the most times the number of moves of the shortest solution that the solution can have,
+     * or 0 if the solver gives no bound
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * checks if the solve was stopped with a best partial result
+     * @return true if getClosestState and getClosestMoves describe the state closest to the goal the search reached
+     */
+    public boolean hasPartialResult() {
+        return closestMoves != null;
+    }
+
+    /**
+     * gets the state closest to the goal by the heuristic that a stopped search generated
+     * @return the packed state, only meaningful if hasPartialResult is true
+     */
+    public long getClosestState() {
+        return closestState;
+    }
+
+    /**
+     * gets the moves from the start to the state closest to the goal that a stopped search generated
+     * @return the direction codes of the moves, see PackedState, or null if there is no partial result
+     */
+    public byte[] getClosestMoves() {
+        return closestMoves;
+    }
+
+    /**
+     * gets the moves of the solution as direction names, such as "Right Down Left"
+     * @return the names of the moves separated by spaces, or an empty string if no solution was found
+     */
+    public String getMoveString() {
+        return moveString(moves);
+    }
+
+    /**
+     * names the moves of a path separated by spaces
+     */
+    private static String moveString(byte[] path) {
+        if (path == null)
+            return "";
+
+        StringBuilder builder = new StringBuilder();
+        for (byte direction : path) {
+            if (builder.length() > 0)
+                builder.append(' ');
+            builder.append(PackedState.DIRECTION_NAMES[direction]);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return status + " cost=" + getCost() + " generated=" + nodesGenerated + " expanded=" + nodesExpanded +
+                " peakOpen=" + peakOpenSize + " elapsed=" + elapsedMillis + "ms moves=[" + getMoveString() + "]" +
+                (bound > 0 ? " bound=" + bound : "") +
+                (hasPartialResult() ? " closest=" + PackedState.toStateString(closestState) +
+                        " closestMoves=[" + moveString(closestMoves) + "]" : "");
+    }
+}
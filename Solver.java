@@ -0,0 +1,27 @@
+/**
+ * A solver of the 8 puzzle that can be used as a library
+ * Implementations are thread safe, so one solver can run solves on many threads at once
+ *
+ * @author calebcain
+ */
+public interface Solver {
+
+    /**
+     * solves the puzzle from a state
+     * @param start the packed start state, see PackedState
+     * @param options the heuristic, weight and limits of the search
+     * @param budget the time budget of the search, which the caller may cancel from another thread
+     * @return the moves of the solution found, or why none was found, and the statistics of the search
+     */
+    SolveResult solve(long start, SolveOptions options, SearchBudget budget);
+
+    /**
+     * solves the puzzle from a state, within the time limit of the options
+     * @param start the packed start state, see PackedState
+     * @param options the heuristic, weight and limits of the search
+     * @return the moves of the solution found, or why none was found, and the statistics of the search
+     */
+    default SolveResult solve(long start, SolveOptions options) {
+        return solve(start, options, new SearchBudget(options.getTimeLimit()));
+    }
+}
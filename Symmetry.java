@@ -0,0 +1,61 @@
+/**
+ * The transpose symmetry of the 8 puzzle
+ * Transposing the board swaps cell (r, c) with cell (c, r). Relabeling every tile with the
+ * number of its transposed cell then maps the goal b12 345 678 back to itself, so every state
+ * and its reflection are the same number of moves from the goal, with right and down swapped
+ * and left and up swapped in their solutions
+ *
+ * Tables and caches keyed by state can store only the canonical form of each pair,
+ * the smaller of the packed state and its reflection
+ *
+ * @author calebcain
+ */
+public class Symmetry {
+
+    /**
+     * the transposed index of each cell, which is also the relabeling of each tile
+     */
+    private static final int[] TRANSPOSE = {0, 3, 6, 1, 4, 7, 2, 5, 8};
+
+    /**
+     * the reflection of each direction code
+     */
+    private static final byte[] MIRRORED_DIRECTIONS = {PackedState.DOWN, PackedState.UP, PackedState.LEFT, PackedState.RIGHT};
+
+    /**
+     * reflects a state, transposing the board and relabeling its tiles
+     * @param packed the packed state
+     * @return the packed reflected state
+     */
+    public static long reflect(long packed) {
+        long reflected = 0;
+        for (int cell = 0; cell < 9; cell++) {
+            long tile = TRANSPOSE[PackedState.tileAt(packed, cell)];
+            reflected |= tile << (4 * TRANSPOSE[cell]);
+        }
+
+        return reflected;
+    }
+
+    /**
+     * gets the canonical form of a state, the same for the state and its reflection
+     * @param packed the packed state
+     * @return the smaller of the packed state and its reflection
+     */
+    public static long canonical(long packed) {
+        return Math.min(packed, reflect(packed));
+    }
+
+    /**
+     * reflects a solution, turning a solution of a state into a solution of its reflection
+     * @param moves the direction codes of the solution
+     * @return the direction codes of the reflected solution
+     */
+    public static byte[] reflectMoves(byte[] moves) {
+        byte[] reflected = new byte[moves.length];
+        for (int i = 0; i < moves.length; i++)
+            reflected[i] = MIRRORED_DIRECTIONS[moves[i]];
+
+        return reflected;
+    }
+}
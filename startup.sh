@@ -0,0 +1,21 @@
+#!/bin/sh
+# Builds the solver along with a class data sharing archive, so later runs start faster
+# The archive is made by a training run of cds-training.txt, which goes through the command grammar
+# Class data sharing needs the classes in a jar, so they are packaged into puzzle.jar
+#
+# Usage: ./startup.sh              build puzzle.jar and puzzle.jsa
+#        ./startup.sh run [args]   run Main with the archive and a startup report
+set -e
+cd "$(dirname "$0")"
+
+if [ "$1" = "run" ]; then
+    shift
+    exec java --add-modules jdk.incubator.vector -XX:SharedArchiveFile=puzzle.jsa -Dpuzzle.startupReport=true -cp puzzle.jar Main "$@"
+fi
+
+rm -rf out
+mkdir out
+javac --add-modules jdk.incubator.vector -d out *.java vector/*.java
+jar cf puzzle.jar -C out .
+java --add-modules jdk.incubator.vector -XX:ArchiveClassesAtExit=puzzle.jsa -cp puzzle.jar Main cds-training.txt < /dev/null > /dev/null
+echo "Built puzzle.jar and puzzle.jsa, start with ./startup.sh run"
@@ -0,0 +1,105 @@
+import jdk.incubator.vector.*;
+
+/**
+ * Heuristics for many packed states at once using the Vector API, one state per lane
+ * Only used through BatchHeuristics, which loads this class by name and falls back to scalar code
+ * when it was not compiled in or the jdk.incubator.vector module is not available
+ * Kept in its own source directory so the rest of the solver compiles without the incubator module
+ *
+ * Each lane holds a whole packed state, so the tiles are pulled out with shifts and masks
+ * in registers rather than unpacked into arrays first. The cost of each tile is looked up
+ * in a per cell table of 9 nibbles packed into one long, shifting the table by 4 times the
+ * tile in each lane, which keeps the lookup in registers instead of gathering from memory
+ *
+ * @author calebcain
+ */
+public class VectorHeuristics implements BatchHeuristics.Evaluator {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Integer> INT_SPECIES = SPECIES.withLanes(int.class);
+
+    /**
+     * the int lanes filled when a long vector is narrowed to ints
+     */
+    private static final VectorMask<Integer> NARROWED = VectorMask.fromLong(INT_SPECIES, (1L << SPECIES.length()) - 1);
+
+    /**
+     * per cell tables of whether each tile is misplaced there, nibble t of entry c is for tile t in cell c
+     */
+    private static final long[] MISPLACED_TABLES = new long[9];
+
+    /**
+     * per cell tables of the manhattan distance of each tile, nibble t of entry c is for tile t in cell c
+     */
+    private static final long[] MANHATTAN_TABLES = new long[9];
+
+    static {
+        for (int cell = 0; cell < 9; cell++) {
+            for (int tile = 1; tile < 9; tile++) {
+                if (tile != cell)
+                    MISPLACED_TABLES[cell] |= 1L << (4 * tile);
+                MANHATTAN_TABLES[cell] |= (long) PackedState.MANHATTAN[cell][tile] << (4 * tile);
+            }
+        }
+    }
+
+    /**
+     * counts the misplaced tiles of each state, not counting the blank
+     * @param states the packed states
+     * @param count the number of states to evaluate
+     * @param out the array to store the counts in
+     * @return the number of states evaluated, the rest are left for scalar code
+     */
+    @Override
+    public int misplacedTiles(long[] states, int count, int[] out) {
+        return sumTables(states, count, out, MISPLACED_TABLES);
+    }
+
+    /**
+     * sums the manhattan distances of the tiles of each state, not counting the blank
+     * @param states the packed states
+     * @param count the number of states to evaluate
+     * @param out the array to store the distances in
+     * @return the number of states evaluated, the rest are left for scalar code
+     */
+    @Override
+    public int manhattanDistance(long[] states, int count, int[] out) {
+        return sumTables(states, count, out, MANHATTAN_TABLES);
+    }
+
+    /**
+     * gets the number of states evaluated per vector
+     * @return the number of lanes
+     */
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * sums the table entries of the tiles of each state, a whole vector of states at a time
+     */
+    private static int sumTables(long[] states, int count, int[] out, long[] tables) {
+        int upper = SPECIES.loopBound(count);
+
+        for (int i = 0; i < upper; i += SPECIES.length()) {
+            LongVector packed = LongVector.fromArray(SPECIES, states, i);
+            LongVector sum = LongVector.zero(SPECIES);
+
+            for (int cell = 0; cell < 9; cell++) {
+                // 4 times the tile in the cell, the bit offset of its nibble in the table
+                LongVector offset = cell == 0 ? packed.lanewise(VectorOperators.LSHL, 2).and(0x3CL)
+                        : packed.lanewise(VectorOperators.LSHR, 4 * cell - 2).and(0x3CL);
+
+                LongVector table = LongVector.broadcast(SPECIES, tables[cell]);
+                sum = sum.add(table.lanewise(VectorOperators.LSHR, offset).and(0xFL));
+            }
+
+            IntVector narrowed = (IntVector) sum.convertShape(VectorOperators.L2I, INT_SPECIES, 0);
+            narrowed.intoArray(out, i, NARROWED);
+        }
+
+        return upper;
+    }
+}